@@ -0,0 +1,138 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.missile.paste.v1_20.fawe;
+
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
+import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.session.ClipboardHolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps the already decoded schematic clipboards in memory, so that a
+ * missile or shield paste only has to transform and place the blocks.
+ * <p>
+ * The entries are keyed by the schematic file and the paste rotation. The file
+ * modification time is only compared when a schematic is (re)loaded via
+ * {@link #load(File, int)}, so a paste never touches the disk for a cached entry.
+ */
+public class ClipboardCache {
+
+    private final Map<String, CachedClipboard> clipboards = new ConcurrentHashMap<>();
+    private final Map<Key, ClipboardHolder> holders = new ConcurrentHashMap<>();
+
+    /**
+     * This method returns the prepared clipboard holder for the schematic and rotation.
+     * If the schematic is not cached yet, it is read from the disk once.
+     *
+     * @param schematic (File) the target WorldEdit schematic file
+     * @param rotation (int) the target schematic rotation
+     * @return (ClipboardHolder) the holder with the rotation transform already applied
+     * @throws IOException if the schematic could not be read
+     */
+    public ClipboardHolder get(File schematic, int rotation) throws IOException {
+        Key key = new Key(getPath(schematic), normalizeRotation(rotation));
+
+        ClipboardHolder holder = holders.get(key);
+        if (holder != null) return holder;
+
+        return load(schematic, rotation);
+    }
+
+    /**
+     * This method (re)loads the schematic into the cache. If the file was modified since
+     * the last read, the old clipboard and all rotations of it are replaced.
+     *
+     * @param schematic (File) the target WorldEdit schematic file
+     * @param rotation (int) the target schematic rotation
+     * @return (ClipboardHolder) the holder with the rotation transform already applied
+     * @throws IOException if the schematic could not be read
+     */
+    public ClipboardHolder load(File schematic, int rotation) throws IOException {
+        String path = getPath(schematic);
+        long lastModified = schematic.lastModified();
+
+        CachedClipboard cached = clipboards.get(path);
+        if ((cached == null) || (cached.lastModified() != lastModified)) {
+            invalidate(schematic);
+            cached = new CachedClipboard(read(schematic), lastModified);
+            clipboards.put(path, cached);
+        }
+
+        Clipboard clipboard = cached.clipboard();
+        return holders.computeIfAbsent(new Key(path, normalizeRotation(rotation)), key -> {
+            ClipboardHolder holder = new ClipboardHolder(clipboard);
+            holder.setTransform(new AffineTransform().rotateY(key.rotation()));
+            return holder;
+        });
+    }
+
+    /**
+     * This method removes the schematic with all of its rotations from the cache.
+     *
+     * @param schematic (File) the target WorldEdit schematic file
+     */
+    public void invalidate(File schematic) {
+        String path = getPath(schematic);
+        clipboards.remove(path);
+        holders.keySet().removeIf(key -> key.path().equals(path));
+    }
+
+    /**
+     * This method removes all cached schematics.
+     */
+    public void clear() {
+        clipboards.clear();
+        holders.clear();
+    }
+
+    public int size() {
+        return holders.size();
+    }
+
+    private static Clipboard read(File schematic) throws IOException {
+        ClipboardFormat clipboardFormat = ClipboardFormats.findByFile(schematic);
+        if (clipboardFormat == null) throw new IOException("Unknown schematic format of '" + schematic.getName() + "'");
+
+        try (ClipboardReader clipboardReader = clipboardFormat.getReader(new FileInputStream(schematic))) {
+            return clipboardReader.read();
+        }
+    }
+
+    private static String getPath(File schematic) {
+        return schematic.getAbsolutePath();
+    }
+
+    private static int normalizeRotation(int rotation) {
+        return ((rotation % 360) + 360) % 360;
+    }
+
+    private record Key(String path, int rotation) {
+    }
+
+    private record CachedClipboard(Clipboard clipboard, long lastModified) {
+    }
+}
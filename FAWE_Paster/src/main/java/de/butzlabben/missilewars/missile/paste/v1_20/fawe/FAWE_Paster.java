@@ -20,23 +20,23 @@ package de.butzlabben.missilewars.missile.paste.v1_20.fawe;
 
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.bukkit.BukkitWorld;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.math.transform.Transform;
 import com.sk89q.worldedit.session.ClipboardHolder;
 import com.sk89q.worldedit.world.World;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.util.BoundingBox;
 import org.bukkit.util.Vector;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.logging.Level;
 
 /**
@@ -44,6 +44,8 @@ import java.util.logging.Level;
  */
 public class FAWE_Paster {
 
+    private final ClipboardCache clipboardCache = new ClipboardCache();
+
     public void pasteMissile(File schematic, Vector locationVec, int rotation, org.bukkit.World world, boolean blockUpdate, 
                              Material replaceMaterial, int replaceTicks, int replaceRadius, JavaPlugin plugin) {
         
@@ -60,7 +62,8 @@ public class FAWE_Paster {
     }
 
     /**
-     * This method executes the paste command via FAWE.
+     * This method executes the paste command via FAWE. The schematic is taken from the 
+     * clipboard cache, so only the transformation and the block placement is done here.
      * 
      * @param schematic (File) the target WorldEdit schematic file (all Schematic formats usable, '.schem' recommended)
      * @param locationVec (Vector) the abstract block location for the paste (= Schematic-Origin)
@@ -71,13 +74,10 @@ public class FAWE_Paster {
     public void pasteSchematic(File schematic, Vector locationVec, int rotation, org.bukkit.World world, JavaPlugin plugin) {
         World weWorld = new BukkitWorld(world);
         BlockVector3 blockVec = getBlockVector(locationVec);
-        ClipboardFormat clipboardFormat = ClipboardFormats.findByFile(schematic);
         
-        try (ClipboardReader clipboardReader = clipboardFormat.getReader(new FileInputStream(schematic));
-             var session = WorldEdit.getInstance().newEditSession(weWorld)) {
+        try (var session = WorldEdit.getInstance().newEditSession(weWorld)) {
             
-            ClipboardHolder clipboardHolder = new ClipboardHolder(clipboardReader.read());
-            clipboardHolder.setTransform(new AffineTransform().rotateY(rotation));
+            ClipboardHolder clipboardHolder = clipboardCache.get(schematic, rotation);
             
             Operation pasteBuilder = clipboardHolder
                     .createPaste(session)
@@ -92,6 +92,63 @@ public class FAWE_Paster {
         }
     }
     
+    /**
+     * This method calculates the block area that a paste of the schematic would cover.
+     * 
+     * @param schematic (File) the target WorldEdit schematic file
+     * @param locationVec (Vector) the abstract block location for the paste (= Schematic-Origin)
+     * @param rotation (int) the target schematic rotation
+     * @param plugin (JavaPlugin) the basis plugin
+     * @return (BoundingBox) the covered area or 'null', if the schematic could not be read
+     */
+    public BoundingBox getPasteBounds(File schematic, Vector locationVec, int rotation, JavaPlugin plugin) {
+        try {
+            ClipboardHolder clipboardHolder = clipboardCache.get(schematic, rotation);
+            Clipboard clipboard = clipboardHolder.getClipboard();
+            Transform transform = clipboardHolder.getTransform();
+            BlockVector3 origin = clipboard.getOrigin();
+            
+            // The rotation is only around the Y axis, so the opposite corners stay opposite.
+            Vector3 corner1 = transform.apply(clipboard.getMinimumPoint().subtract(origin).toVector3());
+            Vector3 corner2 = transform.apply(clipboard.getMaximumPoint().subtract(origin).toVector3());
+            BlockVector3 blockVec = getBlockVector(locationVec);
+            
+            return new BoundingBox(blockVec.x() + corner1.x(), blockVec.y() + corner1.y(), blockVec.z() + corner1.z(),
+                    blockVec.x() + corner2.x(), blockVec.y() + corner2.y(), blockVec.z() + corner2.z());
+            
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not read schematic '" + schematic.getName() + "'", e);
+            return null;
+        }
+    }
+    
+    /**
+     * This method reads the schematic into the clipboard cache for every given rotation. 
+     * A schematic that was modified on the disk since the last read is decoded again.
+     * 
+     * @param schematic (File) the target WorldEdit schematic file
+     * @param rotations (int[]) the schematic rotations which should be prepared
+     * @param plugin (JavaPlugin) the basis plugin
+     */
+    public void loadSchematic(File schematic, int[] rotations, JavaPlugin plugin) {
+        try {
+            for (int rotation : rotations) {
+                clipboardCache.load(schematic, rotation);
+            }
+        } catch (IOException e) {
+            clipboardCache.invalidate(schematic);
+            plugin.getLogger().log(Level.SEVERE, "Could not load schematic '" + schematic.getName() 
+                    + "' into the clipboard cache", e);
+        }
+    }
+    
+    /**
+     * This method removes all schematics from the clipboard cache.
+     */
+    public void clearSchematicCache() {
+        clipboardCache.clear();
+    }
+    
     /**
      * This method removes the temporary "Starter-Block", so that the 
      * (asynchronously on FAWE) pasted schematic structure gets a 
@@ -22,17 +22,32 @@ import co.aikar.commands.PaperCommandManager;
 import de.butzlabben.missilewars.commands.*;
 import de.butzlabben.missilewars.configuration.Config;
 import de.butzlabben.missilewars.game.GameManager;
+import de.butzlabben.missilewars.game.TemplateCloner;
+import de.butzlabben.missilewars.game.WorldDeleter;
+import de.butzlabben.missilewars.game.WorldPool;
+import de.butzlabben.missilewars.game.portal.PortalScanner;
+import de.butzlabben.missilewars.game.regeneration.ArenaRegenerator;
 import de.butzlabben.missilewars.displays.MissileWarsPlaceholder;
 import de.butzlabben.missilewars.game.schematics.paste.FawePasteProvider;
 import de.butzlabben.missilewars.game.schematics.paste.Paster;
 import de.butzlabben.missilewars.displays.signs.SignRepository;
+import de.butzlabben.missilewars.game.stats.FightStatsWriter;
+import de.butzlabben.missilewars.game.stats.StatsExecutor;
 import de.butzlabben.missilewars.game.stats.StatsFetcher;
+import de.butzlabben.missilewars.game.stats.StatsLeaderboard;
 import de.butzlabben.missilewars.initialization.FileManager;
 import de.butzlabben.missilewars.initialization.GamesInitialization;
+import de.butzlabben.missilewars.listener.ArenaRegenerationListener;
 import de.butzlabben.missilewars.listener.PlayerListener;
 import de.butzlabben.missilewars.listener.SignListener;
-import de.butzlabben.missilewars.util.ConnectionHolder;
+import de.butzlabben.missilewars.listener.game.EndListener;
+import de.butzlabben.missilewars.listener.game.GameEventRouter;
+import de.butzlabben.missilewars.listener.game.GameListener;
+import de.butzlabben.missilewars.listener.game.LobbyListener;
+import de.butzlabben.missilewars.util.database.ConnectionPool;
+import de.butzlabben.missilewars.util.stats.GameProfileBuilder;
 import de.butzlabben.missilewars.util.stats.PreFetcher;
+import de.butzlabben.missilewars.util.stats.ProfileResolver;
 import de.butzlabben.missilewars.util.version.VersionUtil;
 import lombok.Getter;
 import org.bstats.bukkit.Metrics;
@@ -92,6 +107,12 @@ public class MissileWars extends JavaPlugin {
         
         GamesInitialization.initialize();
         
+        // Saves the fights of the statistics journal:
+        if (Config.isFightStatsEnabled()) {
+            FightStatsWriter.getInstance().start();
+            StatsLeaderboard.getInstance().start();
+        }
+
         // Warm-up for Stats:
         if (Config.isPrefetchPlayers()) {
             PreFetcher.preFetchPlayers(new StatsFetcher(new Date(0L), ""));
@@ -106,8 +127,18 @@ public class MissileWars extends JavaPlugin {
     public void onDisable() {
         
         GameManager.getInstance().disableAll();
+        ArenaRegenerator.getInstance().shutdown();
+        PortalScanner.shutdown();
+        WorldPool.getInstance().shutdown();
+        TemplateCloner.shutdown();
         FileManager.shotDownRoutine();
-        ConnectionHolder.close();
+        WorldDeleter.getInstance().shutdown();
+        StatsLeaderboard.getInstance().shutdown();
+        ProfileResolver.getInstance().shutdown();
+        GameProfileBuilder.saveCache();
+        StatsExecutor.getInstance().shutdown();
+        FightStatsWriter.getInstance().shutdown();
+        ConnectionPool.shutdown();
     }
     
     /**
@@ -148,6 +179,8 @@ public class MissileWars extends JavaPlugin {
 
         Bukkit.getPluginManager().registerEvents(playerListener, this);
         Bukkit.getPluginManager().registerEvents(signListener, this);
+        Bukkit.getPluginManager().registerEvents(new ArenaRegenerationListener(), this);
+        GameEventRouter.getInstance().register(LobbyListener.class, GameListener.class, EndListener.class);
     }
 
     /**
@@ -23,6 +23,7 @@ import co.aikar.commands.CommandCompletions;
 import co.aikar.commands.PaperCommandManager;
 import com.google.common.collect.ImmutableList;
 import de.butzlabben.missilewars.configuration.Config;
+import de.butzlabben.missilewars.game.Arenas;
 import de.butzlabben.missilewars.game.Game;
 import de.butzlabben.missilewars.game.GameManager;
 import org.bukkit.command.CommandSender;
@@ -39,6 +40,7 @@ public class MWCommandCompletions {
         registerMissilesResult();
         registerMissileFlagsResult();
         registerArenasResult();
+        registerAllArenasResult();
         registerTeamsResult();
         registerGamePlayerResult();
     }
@@ -92,6 +94,10 @@ public class MWCommandCompletions {
         });
     }
     
+    private void registerAllArenasResult() {
+        commandCompletions.registerCompletion("all-arenas", c -> Arenas.getARENAS().keySet());
+    }
+    
     private void registerTeamsResult() {
         commandCompletions.registerCompletion("teams", c -> {
             CommandSender sender = c.getSender();
@@ -24,16 +24,20 @@ import de.butzlabben.missilewars.Logger;
 import de.butzlabben.missilewars.MissileWars;
 import de.butzlabben.missilewars.configuration.Config;
 import de.butzlabben.missilewars.configuration.PluginMessages;
+import de.butzlabben.missilewars.configuration.arena.ArenaConfig;
 import de.butzlabben.missilewars.game.*;
 import de.butzlabben.missilewars.game.enums.GameResult;
 import de.butzlabben.missilewars.game.enums.GameState;
 import de.butzlabben.missilewars.game.enums.TeamType;
 import de.butzlabben.missilewars.game.enums.VoteState;
+import de.butzlabben.missilewars.game.portal.PortalIndex;
 import de.butzlabben.missilewars.game.schematics.objects.Missile;
+import de.butzlabben.missilewars.game.stats.StatsCache;
 import de.butzlabben.missilewars.game.timer.modules.LobbyTimer;
 import de.butzlabben.missilewars.initialization.ConfigLoader;
 import de.butzlabben.missilewars.player.MWPlayer;
 import de.butzlabben.missilewars.util.MaterialUtil;
+import de.butzlabben.missilewars.util.database.ConnectionPool;
 import org.bukkit.Material;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -55,6 +59,7 @@ public class MWCommands extends BaseCommand {
         sendHelpMessage(sender, "mw.stats.recommendations", "/mw stats recommendations [from] [arena]", "Shows recommendations.");
         sendHelpMessage(sender, "mw.stats.players", "/mw stats players [from] [arena]", "Shows player list.");
         sendHelpMessage(sender, "mw.stats.list", "/mw stats list [from] [arena]", "Lists history of games.");
+        sendHelpMessage(sender, "mw.stats.backfill", "/mw stats backfill", "Rebuilds the aggregated stats from all games.");
 
         sendHelpMessage(sender, "mw.listgames", "/mw listgames", "List the active games.");
         sendHelpMessage(sender, "mw.move", "/mw move <player> <1|2|spec>", "Change the team of a specific player.");
@@ -65,6 +70,7 @@ public class MWCommands extends BaseCommand {
         sendHelpMessage(sender, "mw.reload", "/mw reload", "Reload the plugin.");
         sendHelpMessage(sender, "mw.debug", "/mw debug", "Show debug info.");
         sendHelpMessage(sender, "mw.restartall", "/mw restartall", "Restart all games.");
+        sendHelpMessage(sender, "mw.portalindex", "/mw portalindex <arena>", "Rebuild the portal index of an arena.");
 
         sendHelpMessage(sender, "mw.version", "/mw version", "Show the plugin version.");
         sendHelpMessage(sender, "mw.setup", "/mw setup <main|lobby|arena> ...", "Setup the MW locations or the lobby/arena locations.");
@@ -418,6 +424,7 @@ public class MWCommands extends BaseCommand {
 
         ConfigLoader.loadMainConfigs();
         Arenas.load();
+        MissileWars.getInstance().getSchematicPaster().clearSchematicCache();
 
         player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.DEBUG_RELOAD_CONFIG));
     }
@@ -441,6 +448,10 @@ public class MWCommands extends BaseCommand {
             Logger.NORMAL.log("Printing state for arena " + game.getArenaConfig().getName() + ". Number: " + i);
             Logger.NORMAL.log(game.toString());
         }
+        if (Config.isFightStatsEnabled()) {
+            Logger.NORMAL.log("Database connection pool: " + ConnectionPool.getInstance().getMetrics());
+            Logger.NORMAL.log("Stats query cache: " + StatsCache.getInstance());
+        }
 
         player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.DEBUG_PRINTED_DEBUG_MSG));
     }
@@ -466,6 +477,38 @@ public class MWCommands extends BaseCommand {
         player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.DEBUG_RESTART_ALL_GAMES));
     }
 
+    @Subcommand("portalindex")
+    @CommandCompletion("@all-arenas @nothing")
+    @CommandPermission("mw.portalindex")
+    public void portalindexCommand(CommandSender sender, String[] args) {
+
+        if (args.length < 1) {
+            sender.sendMessage(PluginMessages.getPrefix() + "§fUsage: §7/mw portalindex <arena>");
+            return;
+        }
+
+        if (args.length > 1) {
+            sender.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.COMMAND_TO_MANY_ARGUMENTS));
+            return;
+        }
+
+        ArenaConfig arenaConfig = Arenas.getFromName(args[0]);
+        if (arenaConfig == null) {
+            sender.sendMessage(PluginMessages.getPrefix() + "§cThe arena §7" + args[0] + " §cdoes not exist.");
+            return;
+        }
+
+        sender.sendMessage(PluginMessages.getPrefix() + "Building the portal index of the arena §7" + arenaConfig.getName() + "§f...");
+        PortalIndex.build(arenaConfig, portalBlocks -> {
+            if (portalBlocks < 0) {
+                sender.sendMessage(PluginMessages.getPrefix() + "§cCould not build the portal index. See the console for details.");
+                return;
+            }
+            sender.sendMessage(PluginMessages.getPrefix() + "The portal index of the arena §7" + arenaConfig.getName()
+                    + " §fwas built with §7" + portalBlocks + " §fportal blocks.");
+        });
+    }
+
     static void sendHelpMessage(CommandSender sender, String permission, String command, String description) {
         if (sender instanceof Player) {
             if (!sender.hasPermission(permission)) return;
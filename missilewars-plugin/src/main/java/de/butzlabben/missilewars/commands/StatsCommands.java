@@ -24,14 +24,19 @@ import co.aikar.commands.annotation.CommandCompletion;
 import co.aikar.commands.annotation.CommandPermission;
 import co.aikar.commands.annotation.Default;
 import co.aikar.commands.annotation.Subcommand;
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.MissileWars;
 import de.butzlabben.missilewars.configuration.Config;
 import de.butzlabben.missilewars.configuration.PluginMessages;
+import de.butzlabben.missilewars.game.stats.FightStatsWriter;
 import de.butzlabben.missilewars.game.stats.PlayerStats;
 import de.butzlabben.missilewars.game.stats.SavedStats;
+import de.butzlabben.missilewars.game.stats.StatsExecutor;
 import de.butzlabben.missilewars.game.stats.StatsFetcher;
 import de.butzlabben.missilewars.inventory.CustomInv;
 import de.butzlabben.missilewars.inventory.OrcItem;
 import de.butzlabben.missilewars.inventory.pages.PageGUICreator;
+import de.butzlabben.missilewars.inventory.pages.PageSource;
 import de.butzlabben.missilewars.util.stats.PlayerGuiFactory;
 import de.butzlabben.missilewars.util.stats.PreFetcher;
 import de.butzlabben.missilewars.util.stats.StatsUtil;
@@ -42,8 +47,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -55,6 +62,7 @@ public class StatsCommands extends BaseCommand {
     private final static int MAX_FIGHT_DRAW_PERCENTAGE = 15;
     private final static int MIN_FIGHT_DURATION = 5;
     private final static double MAX_AVIATION_WIN = 0.1;
+    private final static int MIN_GAME_COUNT = 10;
     private final SimpleDateFormat format = new SimpleDateFormat("dd.MM.yyyy");
     private final SimpleDateFormat preciseFormat = new SimpleDateFormat("hh:mm dd.MM.yyyy");
 
@@ -67,46 +75,43 @@ public class StatsCommands extends BaseCommand {
 
         StatsFetcher fetcher = getFetcher(player, args);
         if (fetcher == null) return;
-        String arena = fetcher.getArena().replace("%", "");
-
-        PreFetcher.PrePlayerFetchRunnable preFetchRunnable = PreFetcher.preFetchPlayers(fetcher);
-
-        CustomInv inv = new CustomInv("§eMissileWars statistics", 3);
-        List<String> criteriaLore = Arrays.asList("§7Statistics since: §e" + format.format(fetcher.getFrom()), "§7Specified arena: §e" + (arena.isEmpty() ? "any" : arena));
-        inv.addItem(4, new OrcItem(Material.FEATHER, "§aStatistics search criteria", criteriaLore));
-
-        int gameCount = fetcher.getGameCount();
-
-        SavedStats avgStatsWithDraws = fetcher.getAverageSavedStats(false);
-        SavedStats avgStatsWithoutDraws = fetcher.getAverageSavedStats(true);
-        int draws = fetcher.getDrawFights();
-        String duration = StatsUtil.formatDuration(Duration.ofMillis(avgStatsWithDraws.getTimeElapsed()));
-
-        List<String> generalLore = Arrays.asList("§7Fights: §e" + gameCount, "§7Average game length: §e" + duration,
-                "§7Games with a draw: §e" + draws,
-                "§7Team1-wins ÷ Team2-wins: §e" + StatsUtil.formatDouble(avgStatsWithoutDraws.getTeamWon()),
-                "§7Average player count: §e" + StatsUtil.formatDouble(avgStatsWithDraws.getPlayerCount()));
-        inv.addItem(9, new OrcItem(Material.SLIME_BLOCK, "§aGeneral statistics", generalLore));
-
-        List<String> playerLore = Arrays.asList("§7Unique players: §e" + fetcher.getUniquePlayers(), "", "§7Click to list players");
-        OrcItem players = new OrcItem(Material.PLAYER_HEAD, "§aPlayers", playerLore);
-        players.setOnClick((p, inventory, item) -> {
-            p.closeInventory();
-            preFetchRunnable.stop();
-            p.chat("/mw stats players " + format.format(fetcher.getFrom()) + " " + arena);
-        });
-        inv.addItem(13, players);
-
-        List<String> gamesLore = Arrays.asList("", "§7Click to list games");
-        OrcItem games = new OrcItem(Material.PAPER, "§aGames", gamesLore);
-        games.setOnClick((p, inventory, item) -> {
-            p.closeInventory();
-            p.chat("/mw stats list " + format.format(fetcher.getFrom()) + " " + arena);
+        String arena = fetcher.getArena();
+
+        loadAsync(player, fetcher, GeneralStats::load, stats -> {
+            PreFetcher.PrePlayerFetchRunnable preFetchRunnable = PreFetcher.preFetchPlayers(fetcher);
+
+            CustomInv inv = new CustomInv("§eMissileWars statistics", 3);
+            List<String> criteriaLore = Arrays.asList("§7Statistics since: §e" + format.format(fetcher.getFrom()), "§7Specified arena: §e" + (arena.isEmpty() ? "any" : arena));
+            inv.addItem(4, new OrcItem(Material.FEATHER, "§aStatistics search criteria", criteriaLore));
+
+            String duration = StatsUtil.formatDuration(Duration.ofMillis(stats.withDraws().getTimeElapsed()));
+
+            List<String> generalLore = Arrays.asList("§7Fights: §e" + stats.gameCount(), "§7Average game length: §e" + duration,
+                    "§7Games with a draw: §e" + stats.draws(),
+                    "§7Team1-wins ÷ Team2-wins: §e" + StatsUtil.formatDouble(stats.withoutDraws().getTeamWon()),
+                    "§7Average player count: §e" + StatsUtil.formatDouble(stats.withDraws().getPlayerCount()));
+            inv.addItem(9, new OrcItem(Material.SLIME_BLOCK, "§aGeneral statistics", generalLore));
+
+            List<String> playerLore = Arrays.asList("§7Unique players: §e" + stats.uniquePlayers(), "", "§7Click to list players");
+            OrcItem players = new OrcItem(Material.PLAYER_HEAD, "§aPlayers", playerLore);
+            players.setOnClick((p, inventory, item) -> {
+                p.closeInventory();
+                preFetchRunnable.stop();
+                p.chat("/mw stats players " + format.format(fetcher.getFrom()) + " " + arena);
+            });
+            inv.addItem(13, players);
+
+            List<String> gamesLore = Arrays.asList("", "§7Click to list games");
+            OrcItem games = new OrcItem(Material.PAPER, "§aGames", gamesLore);
+            games.setOnClick((p, inventory, item) -> {
+                p.closeInventory();
+                p.chat("/mw stats list " + format.format(fetcher.getFrom()) + " " + arena);
+            });
+            inv.addItem(17, games);
+
+            inv.prettyFill();
+            player.openInventory(inv.getInventory(player));
         });
-        inv.addItem(17, games);
-
-        inv.prettyFill();
-        player.openInventory(inv.getInventory(player));
     }
 
     @Subcommand("recommendations")
@@ -119,33 +124,32 @@ public class StatsCommands extends BaseCommand {
 
         StatsFetcher fetcher = getFetcher(player, args);
         if (fetcher == null) return;
-        SavedStats avgStatsWithDraws = fetcher.getAverageSavedStats(false);
-        SavedStats avgStatsWithoutDraws = fetcher.getAverageSavedStats(true);
-        List<String> recommendations = new ArrayList<>();
-        int gameCount = fetcher.getGameCount();
-
-        double avgWins = avgStatsWithoutDraws.getTeamWon();
-        if (Math.abs(avgWins - 1) > MAX_AVIATION_WIN) {
-            recommendations.add("It could be, that your map is biased to one team, as wins are not equally distributed");
-        }
 
-        int draws = fetcher.getDrawFights();
-        if ((((double) draws / (double) gameCount) * 100) > MAX_FIGHT_DRAW_PERCENTAGE) {
-            recommendations.add("Increase the game_length option. More than 15% of your games are draws");
-        }
+        loadAsync(player, fetcher, GeneralStats::load, stats -> {
+            List<String> recommendations = new ArrayList<>();
 
-        Duration duration = Duration.ofMillis(avgStatsWithoutDraws.getTimeElapsed());
-        if (((double) duration.getSeconds() / 60.0) <= MIN_FIGHT_DURATION) {
-            recommendations.add("Remove some overpowered features. The average game length at won games is under 5 minutes");
-        }
-        // TODO implement more features
+            double avgWins = stats.withoutDraws().getTeamWon();
+            if (Math.abs(avgWins - 1) > MAX_AVIATION_WIN) {
+                recommendations.add("It could be, that your map is biased to one team, as wins are not equally distributed");
+            }
 
-        if (recommendations.isEmpty()) {
-            player.sendMessage(PluginMessages.getPrefix() + "§aThere are currently no recommendations, everything seems fine :)");
-        } else {
-            player.sendMessage(PluginMessages.getPrefix() + "§7=====[ §eMissileWars recommendations §7]=====");
-            recommendations.forEach(str -> player.sendMessage(PluginMessages.getPrefix() + str));
-        }
+            if ((((double) stats.draws() / (double) stats.gameCount()) * 100) > MAX_FIGHT_DRAW_PERCENTAGE) {
+                recommendations.add("Increase the game_length option. More than 15% of your games are draws");
+            }
+
+            Duration duration = Duration.ofMillis(stats.withoutDraws().getTimeElapsed());
+            if (((double) duration.getSeconds() / 60.0) <= MIN_FIGHT_DURATION) {
+                recommendations.add("Remove some overpowered features. The average game length at won games is under 5 minutes");
+            }
+            // TODO implement more features
+
+            if (recommendations.isEmpty()) {
+                player.sendMessage(PluginMessages.getPrefix() + "§aThere are currently no recommendations, everything seems fine :)");
+            } else {
+                player.sendMessage(PluginMessages.getPrefix() + "§7=====[ §eMissileWars recommendations §7]=====");
+                recommendations.forEach(str -> player.sendMessage(PluginMessages.getPrefix() + str));
+            }
+        });
     }
 
     @Subcommand("players")
@@ -158,11 +162,11 @@ public class StatsCommands extends BaseCommand {
 
         StatsFetcher fetcher = getFetcher(player, args);
         if (fetcher == null) return;
-        List<UUID> players = fetcher.getPlayers();
-        List<PlayerStats> playerStats = players.stream().map(fetcher::getStatsFrom).collect(Collectors.toList());
 
-        PlayerGuiFactory playerGuiFactory = new PlayerGuiFactory(playerStats);
-        playerGuiFactory.openWhenReady(player);
+        loadAsync(player, fetcher, f -> {
+            List<PlayerStats> playerStats = f.getAllPlayerStats();
+            return (playerStats == null) ? null : new PlayerGuiFactory(playerStats);
+        }, playerGuiFactory -> playerGuiFactory.open(player));
     }
 
     @Subcommand("list")
@@ -175,16 +179,44 @@ public class StatsCommands extends BaseCommand {
 
         StatsFetcher fetcher = getFetcher(player, args);
         if (fetcher == null) return;
-        List<SavedStats> players = fetcher.getAllStats();
-
-        PageGUICreator<SavedStats> creator = new PageGUICreator<>("§eGame list", players, (item) -> {
-            Duration duration = Duration.ofMillis(item.getTimeElapsed());
-            return new OrcItem(Material.TNT, "§7" + players.indexOf(item),
-                    "§7Started: §e" + preciseFormat.format(item.getTimeStart()),
-                    "§7Duration: §e" + StatsUtil.formatDuration(duration), "§7Arena: §e" + item.getArena(),
-                    "§7Players: §e" + (int) item.getPlayerCount(), "§7Team won: §e" + (int) item.getTeamWon());
+
+        // Only the game count is checked up front. The fights are loaded page by page.
+        loadAsync(player, fetcher, f -> Boolean.TRUE, ignored -> {
+            PageSource<SavedStats> source = (offset, last, limit) -> fetcher.getStatsPage(last, limit);
+            PageGUICreator<SavedStats> creator = new PageGUICreator<>("§eGame list", source, (item) -> {
+                Duration duration = Duration.ofMillis(item.getTimeElapsed());
+                return new OrcItem(Material.TNT, "§7#" + item.getId(),
+                        "§7Started: §e" + preciseFormat.format(item.getTimeStart()),
+                        "§7Duration: §e" + StatsUtil.formatDuration(duration), "§7Arena: §e" + item.getArena(),
+                        "§7Players: §e" + (int) item.getPlayerCount(), "§7Team won: §e" + (int) item.getTeamWon());
+            });
+            creator.show(player);
+        });
+    }
+
+    @Subcommand("backfill")
+    @CommandCompletion("@nothing")
+    @CommandPermission("mw.stats.backfill")
+    public void onBackfill(CommandSender sender, String[] args) {
+
+        if (!Config.isFightStatsEnabled()) {
+            sender.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.STATS_NOT_ENABLED));
+            return;
+        }
+
+        if (args.length > 0) {
+            sender.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.COMMAND_TO_MANY_ARGUMENTS));
+            return;
+        }
+
+        sender.sendMessage(PluginMessages.getPrefix() + "Rebuilding the statistics rollups from all saved fights...");
+        FightStatsWriter.getInstance().rebuildRollups(fights -> {
+            if (fights < 0) {
+                sender.sendMessage(PluginMessages.getPrefix() + "§cCould not rebuild the statistics rollups. See the console for details.");
+                return;
+            }
+            sender.sendMessage(PluginMessages.getPrefix() + "The statistics rollups were rebuilt from §7" + fights + " §ffights.");
         });
-        creator.show(player);
     }
 
     private StatsFetcher getFetcher(Player player, String[] args) {
@@ -206,12 +238,70 @@ public class StatsCommands extends BaseCommand {
             }
         }
 
-        StatsFetcher fetcher = new StatsFetcher(from, arena);
-        if (fetcher.getGameCount() < 10) {
-            player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.STATS_TOO_FEW_GAMES));
-            return null;
+        return new StatsFetcher(from, arena);
+    }
+
+    /**
+     * This method loads the statistics in the background. The player gets the loading
+     * message at once; the callback runs on the main thread when the data is ready. A
+     * player can only load one statistic at the same time.
+     *
+     * @param player (Player) the player who used the command
+     * @param fetcher (StatsFetcher) the fetcher of the command
+     * @param query (Function) loads the data; returns 'null' if the query failed
+     * @param callback (Consumer) shows the data
+     */
+    private <T> void loadAsync(Player player, StatsFetcher fetcher, Function<StatsFetcher, T> query, Consumer<T> callback) {
+        CompletableFuture<LoadResult<T>> future = StatsExecutor.getInstance().supply(player.getUniqueId(), () -> {
+            if (fetcher.getGameCount() < MIN_GAME_COUNT) return new LoadResult<>(false, null);
+            return new LoadResult<>(true, query.apply(fetcher));
+        });
+
+        if (future == null) {
+            player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.STATS_ALREADY_LOADING));
+            return;
         }
         player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.STATS_LOADING_DATA));
-        return fetcher;
+
+        future.whenComplete((result, throwable) -> Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> {
+            if (!player.isOnline()) return;
+
+            if (throwable != null) {
+                Logger.ERROR.log("Could not load the statistics for " + player.getName() + ":");
+                throwable.printStackTrace();
+                player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.STATS_LOADING_FAILED));
+                return;
+            }
+
+            if (!result.enoughGames()) {
+                player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.STATS_TOO_FEW_GAMES));
+                return;
+            }
+
+            if (result.value() == null) {
+                player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.STATS_LOADING_FAILED));
+                return;
+            }
+
+            callback.accept(result.value());
+        }));
+    }
+
+    private record LoadResult<T>(boolean enoughGames, T value) {
+    }
+
+    /**
+     * This record holds the general statistics of the stats menu and the recommendations.
+     */
+    private record GeneralStats(int gameCount, SavedStats withDraws, SavedStats withoutDraws, int draws, int uniquePlayers) {
+
+        private static GeneralStats load(StatsFetcher fetcher) {
+            SavedStats withDraws = fetcher.getAverageSavedStats(false);
+            SavedStats withoutDraws = fetcher.getAverageSavedStats(true);
+            if ((withDraws == null) || (withoutDraws == null)) return null;
+
+            return new GeneralStats(fetcher.getGameCount(), withDraws, withoutDraws,
+                    fetcher.getDrawFights(), fetcher.getUniquePlayers());
+        }
     }
 }
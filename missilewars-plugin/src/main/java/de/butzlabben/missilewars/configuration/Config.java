@@ -78,6 +78,11 @@ public class Config {
         cfg.addDefault("restart_after_fights", -1);
 
         cfg.addDefault("arenas.folder", "plugins/MissileWars/arenas");
+        cfg.addDefault("arenas.world_pool_size", 1);
+        cfg.addDefault("arenas.clone.threads", 4);
+        cfg.addDefault("arenas.clone.reflink", false);
+        cfg.addDefault("arenas.regeneration.enabled", false);
+        cfg.addDefault("arenas.regeneration.blocks_per_tick", 20000);
 
         cfg.addDefault("games.multiple_games", false);
         cfg.addDefault("games.folder", "plugins/MissileWars/games");
@@ -100,6 +105,18 @@ public class Config {
 
         cfg.addDefault("fightstats.enable", false);
         cfg.addDefault("fightstats.show_real_skins", true);
+        cfg.addDefault("fightstats.cache.ttl", 60);
+        cfg.addDefault("fightstats.cache.max_entries", 256);
+        cfg.addDefault("fightstats.query_threads", 2);
+        cfg.addDefault("fightstats.leaderboard.refresh_interval", 60);
+        cfg.addDefault("fightstats.leaderboard.size", 10);
+        cfg.addDefault("fightstats.profile_cache.ttl", 259200);
+        cfg.addDefault("fightstats.profile_cache.max_entries", 10000);
+        cfg.addDefault("fightstats.profile_resolver.threads", 2);
+        cfg.addDefault("fightstats.profile_resolver.requests_per_second", 2.0);
+        cfg.addDefault("fightstats.profile_resolver.burst", 10);
+        cfg.addDefault("fightstats.profile_resolver.max_retries", 3);
+        cfg.addDefault("fightstats.profile_resolver.timeout", 5000);
 
         Location worldSpawnLoc = Bukkit.getWorlds().get(0).getSpawnLocation();
         cfg.addDefault("fallback_spawn.world", worldSpawnLoc.getWorld().getName());
@@ -116,6 +133,16 @@ public class Config {
         cfg.addDefault("mysql.password", "");
         cfg.addDefault("mysql.fights_table", "mw_fights");
         cfg.addDefault("mysql.fightmember_table", "mw_fightmember");
+        cfg.addDefault("mysql.player_totals_table", "mw_player_totals");
+        cfg.addDefault("mysql.player_daily_table", "mw_player_daily");
+        cfg.addDefault("mysql.arena_daily_table", "mw_arena_daily");
+        cfg.addDefault("mysql.schema_version_table", "mw_schema_version");
+        cfg.addDefault("mysql.players_table", "mw_players");
+        cfg.addDefault("mysql.pool.max_size", 4);
+        cfg.addDefault("mysql.pool.connection_timeout", 5000);
+        cfg.addDefault("mysql.pool.validation_interval", 30000);
+        cfg.addDefault("mysql.pool.max_lifetime", 1800000);
+        cfg.addDefault("mysql.pool.statement_cache_size", 64);
 
         cfg.addDefault("sidebar.title", "&eInfo ●&6•");
         cfg.addDefault("sidebar.member_list_style", "%team_color%%playername%");
@@ -286,6 +313,26 @@ public class Config {
         return cfg.getString("arenas.folder");
     }
 
+    public static int getWorldPoolSize() {
+        return cfg.getInt("arenas.world_pool_size");
+    }
+
+    public static int getCloneThreads() {
+        return cfg.getInt("arenas.clone.threads");
+    }
+
+    public static boolean isCloneReflink() {
+        return cfg.getBoolean("arenas.clone.reflink");
+    }
+
+    public static boolean isArenaRegeneration() {
+        return cfg.getBoolean("arenas.regeneration.enabled");
+    }
+
+    public static int getRegenerationBlocksPerTick() {
+        return cfg.getInt("arenas.regeneration.blocks_per_tick");
+    }
+
     public static boolean useMultipleGames() {
         return cfg.getBoolean("games.multiple_games");
     }
@@ -349,6 +396,54 @@ public class Config {
     public static boolean isShowRealSkins() {
         return cfg.getBoolean("fightstats.show_real_skins");
     }
+
+    public static int getStatsCacheTtl() {
+        return cfg.getInt("fightstats.cache.ttl");
+    }
+
+    public static int getStatsCacheMaxEntries() {
+        return cfg.getInt("fightstats.cache.max_entries");
+    }
+
+    public static int getStatsQueryThreads() {
+        return cfg.getInt("fightstats.query_threads");
+    }
+
+    public static int getLeaderboardRefreshInterval() {
+        return cfg.getInt("fightstats.leaderboard.refresh_interval");
+    }
+
+    public static int getLeaderboardSize() {
+        return cfg.getInt("fightstats.leaderboard.size");
+    }
+
+    public static int getProfileCacheTtl() {
+        return cfg.getInt("fightstats.profile_cache.ttl");
+    }
+
+    public static int getProfileCacheMaxEntries() {
+        return cfg.getInt("fightstats.profile_cache.max_entries");
+    }
+
+    public static int getProfileResolverThreads() {
+        return cfg.getInt("fightstats.profile_resolver.threads");
+    }
+
+    public static double getProfileResolverRate() {
+        return cfg.getDouble("fightstats.profile_resolver.requests_per_second");
+    }
+
+    public static int getProfileResolverBurst() {
+        return cfg.getInt("fightstats.profile_resolver.burst");
+    }
+
+    public static int getProfileResolverMaxRetries() {
+        return cfg.getInt("fightstats.profile_resolver.max_retries");
+    }
+
+    public static int getProfileResolverTimeout() {
+        return cfg.getInt("fightstats.profile_resolver.timeout");
+    }
     
     public static Location getFallbackSpawn() {
         ConfigurationSection cfg = Config.cfg.getConfigurationSection("fallback_spawn");
@@ -398,6 +493,46 @@ public class Config {
         return cfg.getString("mysql.fightmember_table");
     }
 
+    public static String getPlayerTotalsTable() {
+        return cfg.getString("mysql.player_totals_table");
+    }
+
+    public static String getPlayerDailyTable() {
+        return cfg.getString("mysql.player_daily_table");
+    }
+
+    public static String getArenaDailyTable() {
+        return cfg.getString("mysql.arena_daily_table");
+    }
+
+    public static String getSchemaVersionTable() {
+        return cfg.getString("mysql.schema_version_table");
+    }
+
+    public static String getPlayersTable() {
+        return cfg.getString("mysql.players_table");
+    }
+
+    public static int getPoolMaxSize() {
+        return cfg.getInt("mysql.pool.max_size");
+    }
+
+    public static long getPoolConnectionTimeout() {
+        return cfg.getLong("mysql.pool.connection_timeout");
+    }
+
+    public static long getPoolValidationInterval() {
+        return cfg.getLong("mysql.pool.validation_interval");
+    }
+
+    public static long getPoolMaxLifetime() {
+        return cfg.getLong("mysql.pool.max_lifetime");
+    }
+
+    public static int getPoolStatementCacheSize() {
+        return cfg.getInt("mysql.pool.statement_cache_size");
+    }
+
     public static String getScoreboardTitle() {
         return PluginMessages.getConvertedMsg(cfg.getString("sidebar.title"));
     }
@@ -51,6 +51,8 @@ public class ArenaConfig implements Cloneable {
     @SerializedName("fireball") private FireballConfig fireballConfig = new FireballConfig();
     @SerializedName("arrow") private ArrowConfig arrowConfig = new ArrowConfig();
     @SerializedName("save_statistics") private boolean saveStatistics = true;
+    // A large template can be kept with fewer copies than the default ('arenas.world_pool_size'), -1 uses the default.
+    @SerializedName("world_pool_size") private int worldPoolSize = -1;
     @SerializedName("fall_protection") private FallProtectionConfig fallProtection = new FallProtectionConfig();
     @SerializedName("equipment_interval") private EquipmentIntervalConfig interval = new EquipmentIntervalConfig();
     @SerializedName("missile") private MissileConfig missileConfig = new MissileConfig();
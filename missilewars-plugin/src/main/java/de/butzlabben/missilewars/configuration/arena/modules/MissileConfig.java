@@ -19,10 +19,12 @@
 package de.butzlabben.missilewars.configuration.arena.modules;
 
 import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.MissileWars;
 import de.butzlabben.missilewars.game.schematics.SchematicConfiguration;
 import de.butzlabben.missilewars.game.schematics.SchematicFacing;
 import de.butzlabben.missilewars.game.schematics.objects.Missile;
 import de.butzlabben.missilewars.game.schematics.objects.SchematicObject;
+import de.butzlabben.missilewars.game.schematics.paste.Paster;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
@@ -111,6 +113,13 @@ public class MissileConfig extends SchematicConfiguration {
             toRemove.add(missile);
         }
         getSchematics().removeAll(toRemove);
+        
+        // Warm-up of the schematic cache for all pasteable directions:
+        int[] rotations = getEnabledFacings().stream().mapToInt(SchematicFacing::getRotation).toArray();
+        Paster paster = MissileWars.getInstance().getSchematicPaster();
+        for (Missile missile : getSchematics()) {
+            paster.loadSchematic(missile.getSchematic(), rotations);
+        }
     }
     
     public List<SchematicFacing> getEnabledFacings() {
@@ -20,9 +20,11 @@ package de.butzlabben.missilewars.configuration.arena.modules;
 
 import com.google.gson.annotations.SerializedName;
 import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.MissileWars;
 import de.butzlabben.missilewars.game.schematics.SchematicConfiguration;
 import de.butzlabben.missilewars.game.schematics.objects.SchematicObject;
 import de.butzlabben.missilewars.game.schematics.objects.Shield;
+import de.butzlabben.missilewars.game.schematics.paste.Paster;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
@@ -101,6 +103,12 @@ public class ShieldConfig extends SchematicConfiguration {
             toRemove.add(shield);
         }
         getSchematics().removeAll(toRemove);
+        
+        // Warm-up of the schematic cache (shields are always pasted without rotation):
+        Paster paster = MissileWars.getInstance().getSchematicPaster();
+        for (Shield shield : getSchematics()) {
+            paster.loadSchematic(shield.getSchematic(), 0);
+        }
     }
     
 }
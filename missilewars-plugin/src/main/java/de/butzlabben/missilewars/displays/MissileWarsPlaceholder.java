@@ -24,7 +24,11 @@ import de.butzlabben.missilewars.configuration.arena.ArenaConfig;
 import de.butzlabben.missilewars.game.Game;
 import de.butzlabben.missilewars.game.GameManager;
 import de.butzlabben.missilewars.game.enums.GameState;
+import de.butzlabben.missilewars.game.stats.PlayerStats;
+import de.butzlabben.missilewars.game.stats.StatsLeaderboard;
 import de.butzlabben.missilewars.player.MWPlayer;
+import de.butzlabben.missilewars.player.PlayerRegionTracker;
+import de.butzlabben.missilewars.util.stats.StatsUtil;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
@@ -66,12 +70,19 @@ public class MissileWarsPlaceholder extends PlaceholderExpansion {
     @Override
     public String onRequest(OfflinePlayer offlinePlayer, String params) {
 
+        // %missilewars_top_<wins|loses|games>_<rank>_<name|value>%
+        if (params.startsWith("top_")) return getLeaderboardPlaceholder(params);
+
+        // %missilewars_player_<wins|loses|games|winrate>%
+        String playerStats = getPlayerStatsPlaceholder(offlinePlayer, params);
+        if (playerStats != null) return playerStats;
+
         if (params.endsWith("_this") || params.startsWith("player_")) {
             // if (!offlinePlayer.isOnline()) return "§c§oPlayer is not online!";
             if (!offlinePlayer.isOnline()) return noInformation;
 
             Player player = offlinePlayer.getPlayer();
-            Game playerGame = GameManager.getInstance().getGame(player.getLocation());
+            Game playerGame = PlayerRegionTracker.getInstance().getGame(player);
 
             if (playerGame == null) {
 
@@ -218,4 +229,49 @@ public class MissileWarsPlaceholder extends PlaceholderExpansion {
         return null;
     }
 
+    /**
+     * This method returns a leaderboard placeholder from the last leaderboard snapshot.
+     * The database is never queried here.
+     */
+    private String getLeaderboardPlaceholder(String params) {
+        String[] parts = params.split("_");
+        if (parts.length != 4) return null;
+
+        StatsLeaderboard.Category category;
+        int rank;
+        try {
+            category = StatsLeaderboard.Category.valueOf(parts[1].toUpperCase());
+            rank = Integer.parseInt(parts[2]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        StatsLeaderboard.Entry entry = StatsLeaderboard.getInstance().getEntry(category, rank);
+        if (parts[3].equalsIgnoreCase("name")) return (entry == null) ? noInformation : entry.name();
+        if (parts[3].equalsIgnoreCase("value")) return (entry == null) ? noInformation : Integer.toString(entry.value());
+        return null;
+    }
+
+    /**
+     * This method returns a statistics placeholder of the player from the last leaderboard
+     * snapshot. The database is never queried here.
+     *
+     * @return (String) the value or 'null', if it is no statistics placeholder
+     */
+    private String getPlayerStatsPlaceholder(OfflinePlayer offlinePlayer, String params) {
+        if (!params.equalsIgnoreCase("player_wins") && !params.equalsIgnoreCase("player_loses")
+                && !params.equalsIgnoreCase("player_games") && !params.equalsIgnoreCase("player_winrate")) return null;
+
+        if (offlinePlayer == null) return noInformation;
+        PlayerStats stats = StatsLeaderboard.getInstance().getStats(offlinePlayer.getUniqueId());
+        if (stats == null) return noInformation;
+
+        return switch (params.toLowerCase()) {
+            case "player_wins" -> Integer.toString(stats.getWins());
+            case "player_loses" -> Integer.toString(stats.getLoses());
+            case "player_games" -> Integer.toString(stats.getGamesPlayed());
+            default -> StatsUtil.formatDouble((stats.getGamesPlayed() == 0) ? 0 : 100.0 * stats.getWins() / stats.getGamesPlayed());
+        };
+    }
+
 }
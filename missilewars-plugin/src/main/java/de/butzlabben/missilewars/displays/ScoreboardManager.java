@@ -32,6 +32,7 @@ import org.bukkit.scoreboard.DisplaySlot;
 import org.bukkit.scoreboard.Objective;
 import org.bukkit.scoreboard.Scoreboard;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -54,15 +55,16 @@ public class ScoreboardManager {
     private static final int MEMBER_LIST_MAX_SIZE = Config.getScoreboardMembersMax();
     private static final List<String> SCOREBOARD_ENTRIES = Config.getScoreboardEntries();
 
-    private boolean isTeam1ListUsed = false;
-    private boolean isTeam2ListUsed = false;
-
     @Getter private Scoreboard board;
     @Getter private boolean boardIsReady = false;
     private Objective obj;
     private Map<Integer, org.bukkit.scoreboard.Team> teams = new HashMap<>();
     private Map<Team, Integer> scoreboardTeamPage = new HashMap<>();
     private static final String[] COLOR_CODES = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "a", "b", "c", "d", "e", "f"};
+    // The sidebar can't display more lines.
+    private static final int MAX_LINES = 15;
+    // The lines which are currently shown, from top to bottom.
+    private final List<String> renderedLines = new ArrayList<>();
     private TaskManager taskManager;
 
     /**
@@ -73,12 +75,7 @@ public class ScoreboardManager {
         team1 = game.getTeamManager().getTeam1();
         team2 = game.getTeamManager().getTeam2();
 
-        if (game.getArenaConfig() == null) {
-            // using of placeholders until the arena is not set
-            setArenaDisplayName("?");
-        } else {
-            setArenaDisplayName(game.getArenaConfig().getDisplayName());
-        }
+        setArenaDisplayName(getCurrentArenaDisplayName());
 
         // register Scoreboard
         if (board == null) {
@@ -88,15 +85,6 @@ public class ScoreboardManager {
         obj.setDisplaySlot(DisplaySlot.SIDEBAR);
         obj.setDisplayName(SCOREBOARD_TITLE);
 
-        // check if the team lists are used
-        for (String cleanLine : SCOREBOARD_ENTRIES) {
-            if (cleanLine.contains("%team1_members%")) {
-                isTeam1ListUsed = true;
-            } else if (cleanLine.contains("%team2_members%")) {
-                isTeam2ListUsed = true;
-            }
-        }
-        
         resetScoreboardTeamPage(team1);
         resetScoreboardTeamPage(team2);
         
@@ -112,24 +100,35 @@ public class ScoreboardManager {
     }
 
     /**
-     * This method updates the individual scoreboard lines.
+     * This method updates the individual scoreboard lines. Only the lines whose text has
+     * changed are sent to the players.
      */
     public void updateScoreboard() {
+        render(getLines());
+    }
 
-        // the number of lines required for the complete Scoreboard
-        int scoreboardLine = SCOREBOARD_ENTRIES.size() + getLineOffset();
-
-        // add new teams
-        for (int i = 1; i <= scoreboardLine; i++) {
-            addScoreboardTeam(i);
+    /**
+     * This method updates the scoreboard after the players or teams have changed. The
+     * scoreboard is only created again if it doesn't exist yet or the arena has changed,
+     * as the names of the line teams depend on the arena.
+     */
+    public void refreshScoreboard() {
+        if ((obj == null) || !arenaDisplayName.equals(getCurrentArenaDisplayName())) {
+            resetScoreboard();
+            return;
         }
+        updateScoreboard();
+    }
 
-        String replacedLine;
+    /**
+     * This method creates the text of all scoreboard lines.
+     *
+     * @return (List) the lines from top to bottom
+     */
+    private List<String> getLines() {
+        List<String> lines = new ArrayList<>();
 
         for (String cleanLine : SCOREBOARD_ENTRIES) {
-            if (scoreboardLine <= 0) {
-                break;
-            }
 
             if (cleanLine.contains("%team1_members%") || cleanLine.contains("%team2_members%")) {
 
@@ -177,34 +176,56 @@ public class ScoreboardManager {
                     String playerName = mwPlayer.getPlayer().getName();
                     String teamColor = placeholderTeam.getColor();
 
-                    replacedLine = MEMBER_LIST_STYLE.replace("%playername%", playerName)
-                            .replace("%team_color%", teamColor);
-                    teams.get(scoreboardLine).setPrefix(replacedLine);
+                    lines.add(MEMBER_LIST_STYLE.replace("%playername%", playerName)
+                            .replace("%team_color%", teamColor));
 
                     playerCounter++;
-                    scoreboardLine--;
                 }
 
                 // Fill the rest of the player-list lines with a blank line, if no more player exists, starting on page 2.
                 if (getScoreboardTeamPage(placeholderTeam) == 1) continue;
                 for (int i = playerCounter; i <= getScoreboardTeamPage(placeholderTeam) * MEMBER_LIST_MAX_SIZE; i++) {
-                    teams.get(scoreboardLine).setPrefix("");
-
-                    playerCounter++;
-                    scoreboardLine--;
+                    lines.add("");
                 }
 
             } else {
 
                 // normal placeholders management:
 
-                replacedLine = replaceScoreboardPlaceholders(cleanLine);
-                teams.get(scoreboardLine).setPrefix(replacedLine);
+                lines.add(replaceScoreboardPlaceholders(cleanLine));
+            }
+        }
+
+        return lines;
+    }
 
-                scoreboardLine--;
+    /**
+     * This method shows the lines on the scoreboard. It compares them with the lines that
+     * are currently shown: only changed lines are updated, and if the amount of lines has
+     * changed, only the lines at the bottom are added or removed.
+     *
+     * @param lines (List) the lines from top to bottom
+     */
+    private void render(List<String> lines) {
+        int size = Math.min(lines.size(), MAX_LINES);
+
+        for (int index = 0; index < size; index++) {
+            String line = lines.get(index);
+
+            if (index >= renderedLines.size()) {
+                addLine(index, line);
+                renderedLines.add(line);
+            } else if (!line.equals(renderedLines.get(index))) {
+                teams.get(index).setPrefix(line);
+                renderedLines.set(index, line);
             }
         }
 
+        while (renderedLines.size() > size) {
+            int index = renderedLines.size() - 1;
+            board.resetScores(getEntry(index));
+            renderedLines.remove(index);
+        }
     }
 
     /**
@@ -231,6 +252,7 @@ public class ScoreboardManager {
             teams.forEach((k, v) -> v.unregister());
             teams.clear();
         }
+        renderedLines.clear();
 
     }
 
@@ -244,43 +266,33 @@ public class ScoreboardManager {
     }
 
     /**
-     * This method creates a team for the scoreboard and adds it to the teams ArrayList.
-     *
-     * @param line the Scoreboard line number
-     */
-    private void addScoreboardTeam(int line) {
-        org.bukkit.scoreboard.Team team;
-
-        if (teams.size() < line) {
-            team = board.registerNewTeam(arenaDisplayName + "-" + line);
-            team.addEntry("§" + COLOR_CODES[line - 1]);
-            obj.getScore("§" + COLOR_CODES[line - 1]).setScore(line);
-            teams.put(line, team);
-        }
-    }
-
-    /**
-     * This method calculates the offset lines based of the amount of players
-     * and the using of the member-list placeholders for both teams.
+     * This method shows a new line at the bottom of the scoreboard. The team of the line is
+     * registered once and kept, if the line is removed again later.
      *
-     * @return (int) the amount of offset lines
+     * @param index (int) the line index, starting at the top with 0
+     * @param text (String) the text of the line
      */
-    private int getLineOffset() {
-
-        int team1ListSize = 0;
-        int team2ListSize = 0;
+    private void addLine(int index, String text) {
+        org.bukkit.scoreboard.Team team = teams.get(index);
 
-        if (isTeam1ListUsed) {
-            team1ListSize = Math.min(team1.getMembers().size(), MEMBER_LIST_MAX_SIZE);
-            team1ListSize--;
+        if (team == null) {
+            team = board.registerNewTeam(arenaDisplayName + "-" + index);
+            team.addEntry(getEntry(index));
+            teams.put(index, team);
         }
 
-        if (isTeam2ListUsed) {
-            team2ListSize = Math.min(team2.getMembers().size(), MEMBER_LIST_MAX_SIZE);
-            team2ListSize--;
-        }
+        team.setPrefix(text);
+        obj.getScore(getEntry(index)).setScore(MAX_LINES - index);
+    }
+
+    private String getEntry(int index) {
+        return "§" + COLOR_CODES[index];
+    }
 
-        return team1ListSize + team2ListSize;
+    private String getCurrentArenaDisplayName() {
+        // using of placeholders until the arena is not set
+        if (game.getArenaConfig() == null) return "?";
+        return game.getArenaConfig().getDisplayName();
     }
 
     /**
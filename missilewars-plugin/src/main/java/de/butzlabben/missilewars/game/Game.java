@@ -33,37 +33,51 @@ import de.butzlabben.missilewars.game.equipment.EquipmentManager;
 import de.butzlabben.missilewars.displays.MotdManager;
 import de.butzlabben.missilewars.displays.ScoreboardManager;
 import de.butzlabben.missilewars.game.misc.TeamSpawnProtection;
+import de.butzlabben.missilewars.game.portal.PortalBlocks;
+import de.butzlabben.missilewars.game.portal.PortalIndex;
+import de.butzlabben.missilewars.game.portal.PortalScanner;
+import de.butzlabben.missilewars.game.regeneration.ArenaRegenerator;
+import de.butzlabben.missilewars.game.regeneration.RegenerableArena;
 import de.butzlabben.missilewars.game.schematics.objects.Missile;
 import de.butzlabben.missilewars.game.schematics.objects.Shield;
 import de.butzlabben.missilewars.displays.signs.MWSign;
 import de.butzlabben.missilewars.game.stats.FightStats;
+import de.butzlabben.missilewars.game.stats.FightStatsWriter;
+import de.butzlabben.missilewars.game.stats.PlayerDirectory;
 import de.butzlabben.missilewars.game.timer.modules.EndTimer;
 import de.butzlabben.missilewars.game.timer.modules.GameTimer;
 import de.butzlabben.missilewars.game.timer.modules.LobbyTimer;
 import de.butzlabben.missilewars.game.timer.TaskManager;
 import de.butzlabben.missilewars.listener.game.EndListener;
 import de.butzlabben.missilewars.listener.game.GameBoundListener;
+import de.butzlabben.missilewars.listener.game.GameEventRouter;
 import de.butzlabben.missilewars.listener.game.GameListener;
 import de.butzlabben.missilewars.listener.game.LobbyListener;
 import de.butzlabben.missilewars.player.MWPlayer;
+import de.butzlabben.missilewars.util.LongHashSet;
+import de.butzlabben.missilewars.util.LongObjectHashMap;
 import de.butzlabben.missilewars.util.geometry.GameArea;
 import de.butzlabben.missilewars.util.geometry.Geometry;
+import de.butzlabben.missilewars.util.geometry.PackedPosition;
 import de.butzlabben.missilewars.util.serialization.Serializer;
 import de.redstoneworld.redutilities.player.Teleport;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import org.bukkit.*;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Fireball;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Snowball;
-import org.bukkit.event.HandlerList;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.BoundingBox;
 import org.bukkit.util.Vector;
 
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -82,7 +96,9 @@ public class Game {
     private final Map<UUID, MWPlayer> players = new HashMap<>();
     private final MapVoting mapVoting = new MapVoting(this);
     private final Map<UUID, BukkitTask> playerTasks = new HashMap<>();
-    private final List<Location> portalBlocks = new ArrayList<>();
+    private final PortalBlocks portalBlocks = new PortalBlocks();
+    private final LongHashSet pendingPortalChecks = new LongHashSet();
+    private boolean portalCheckScheduled = false;
     private TeamManager teamManager;
     private boolean ready = false;
     private boolean restart = false;
@@ -197,7 +213,6 @@ public class Game {
         ++fights;
         checkFightRestart();
 
-        FightStats.checkTables();
         Logger.DEBUG.log("Fights: " + fights);
 
         ready = true;
@@ -209,10 +224,13 @@ public class Game {
         if (fights >= Config.getFightRestart()) restart = true;
     }
 
+    /**
+     * This method sets the listener of the current game phase. The events are passed
+     * to it by the {@link GameEventRouter}, so no listener (un)registration is necessary.
+     *
+     * @param newListener (GameBoundListener) the listener of the new game phase
+     */
     private void updateGameListener(GameBoundListener newListener) {
-        if (listener != null) HandlerList.unregisterAll(listener);
-
-        Bukkit.getPluginManager().registerEvents(newListener, MissileWars.getInstance());
         this.listener = newListener;
     }
 
@@ -244,6 +262,8 @@ public class Game {
         timestart = System.currentTimeMillis();
 
         applyForAllPlayers(player -> gameJoinManager.startForPlayer(player, true));
+        
+        refillWorldPool();
 
         updateMOTD();
 
@@ -278,16 +298,37 @@ public class Game {
         state = GameState.END;
 
         updateMOTD();
+        
+        refillWorldPool();
 
         if (arenaConfig.isSaveStatistics()) {
-            FightStats stats = new FightStats(this);
-            stats.insert();
+            FightStatsWriter.getInstance().submit(new FightStats(this));
+
+            // Keeps the names of the fight members up to date, e.g. after a name change.
+            for (MWPlayer mwPlayer : players.values()) {
+                Player player = mwPlayer.getPlayer();
+                if (player != null) PlayerDirectory.getInstance().record(player);
+            }
         }
 
         Logger.DEBUG.log("Stopped completely");
         Bukkit.getPluginManager().callEvent(new GameStopEvent(this));
     }
 
+    /**
+     * This method prepares new copies of the possible arena templates for the next 
+     * rounds. The copies are made in the background while the game is running. 
+     * Templates whose world is restored in place don't need a copy.
+     */
+    private void refillWorldPool() {
+        for (ArenaConfig arena : gameConfig.getArenas()) {
+            if (Config.isArenaRegeneration() && ArenaRegenerator.getInstance().isRegenerated(arena.getTemplateWorld())) continue;
+            
+            int poolSize = (arena.getWorldPoolSize() >= 0) ? arena.getWorldPoolSize() : Config.getWorldPoolSize();
+            WorldPool.getInstance().refill(arena.getTemplateWorld(), poolSize);
+        }
+    }
+
     public void reset() {
         if (Config.isSetup()) return;
 
@@ -329,10 +370,11 @@ public class Game {
         }
         
         // Deactivation of all event handlers
-        HandlerList.unregisterAll(listener);
+        listener = null;
         taskManager.stopTimer();
 
-        if (gameWorld != null) {
+        // With the arena regeneration, the world is kept and only restored.
+        if ((gameWorld != null) && !gameWorld.regenerate()) {
             gameWorld.unload();
             gameWorld.delete();
         }
@@ -497,10 +539,28 @@ public class Game {
             return;
         }
         
-        shield.paste(ball);
+        shield.paste(this, ball);
         player.playSound(player.getLocation(), Sound.ENTITY_ENDER_DRAGON_FLAP, 1, 1);
     }
 
+    /**
+     * This method records the area of a pasted schematic for the arena regeneration. The 
+     * paste is done by WorldEdit, so it doesn't cause any block events.
+     *
+     * @param schematic (File) the pasted schematic
+     * @param locationVec (Vector) the paste location
+     * @param rotation (int) the schematic rotation
+     */
+    public void trackPaste(File schematic, Vector locationVec, int rotation) {
+        if (gameWorld == null) return;
+
+        RegenerableArena arena = gameWorld.getRegenerableArena();
+        if (arena == null) return;
+
+        BoundingBox bounds = MissileWars.getInstance().getSchematicPaster().getPasteBounds(schematic, locationVec, rotation);
+        if (bounds != null) arena.mark(bounds);
+    }
+
     /**
      * This method spawns the fireball for the player.
      *
@@ -546,38 +606,79 @@ public class Game {
         createInnerGameArea();
         
         savePortalPositions();
+        
+        // The game is not yet added to the game manager during the first arena selection.
+        GameManager.getInstance().updateGameIndex();
     }
 
     /**
-     * This method goes through all blocks within the arena and saves the portal 
-     * block positions so that they can be checked regularly during the game.
+     * This method saves the portal block positions of the arena so that they can 
+     * be checked regularly during the game.
+     * <p>
+     * The positions are taken from the portal index of the arena template. If there 
+     * is no valid index, all blocks within the arena are searched on chunk snapshots 
+     * in the background and the index is (re)built from the result. Only the found 
+     * positions are handed back to the game on the main thread.
      */
     private void savePortalPositions() {
         
-        long startTime = System.currentTimeMillis();
+        World world = gameWorld.getWorld();
+        PortalIndex portalIndex = new PortalIndex(arenaConfig);
+        portalBlocks.setWorld(world);
+        
+        long startTime = System.nanoTime();
+        CompletableFuture<long[]> index = portalIndex.load();
         
-        int minX = gameArea.getMinX();
-        int minY = gameArea.getMinY();
-        int minZ = gameArea.getMinZ();
+        // An unchanged template is validated right away. Otherwise, the region files are 
+        // hashed in the background first.
+        if (index.isDone()) {
+            loadPortalPositions(world, portalIndex, index.join(), startTime);
+            return;
+        }
         
-        int maxX = gameArea.getMaxX();
-        int maxY = gameArea.getMaxY();
-        int maxZ = gameArea.getMaxZ();
+        index.thenAccept(indexedPositions -> Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> {
+            
+            // The arena could already be reset in the meantime.
+            if (Bukkit.getWorld(world.getUID()) == null) return;
+            
+            loadPortalPositions(world, portalIndex, indexedPositions, startTime);
+        }));
+    }
+    
+    private void loadPortalPositions(World world, PortalIndex portalIndex, long[] indexedPositions, long startTime) {
         
-        for (int x = minX; x <= maxX; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                for (int z = minZ; z <= maxZ; z++) {
-                    
-                    if (gameWorld.getWorld().getBlockAt(x, y, z).getType() == Material.NETHER_PORTAL) 
-                        portalBlocks.add(new Location(gameWorld.getWorld(), x, y, z));
-                }
-            }
+        if (indexedPositions != null) {
+            portalBlocks.addAll(indexedPositions);
+            
+            Logger.DEBUG.log("[Portal Position-Cache] Time reached for Portal-Index loading: " 
+                    + ((System.nanoTime() - startTime) / 1000) + " µs.");
+            Logger.DEBUG.log("[Portal Position-Cache] Founded " + portalBlocks.size() + " Portal blocks.");
+            return;
         }
         
-        long endTime = System.currentTimeMillis();
+        // A reused world can still be restored in the background. It is only searched after
+        // the restore and never saved as the index, as it's not a plain copy of the template.
+        boolean reused = gameWorld.isReused();
         
-        Logger.DEBUG.log("[Portal Position-Cache] Time reached for Portal-Counting: " + (endTime - startTime) + " ms.");
-        Logger.DEBUG.log("[Portal Position-Cache] Founded " + portalBlocks.size() + " Portal blocks.");
+        gameWorld.whenRestored().thenCompose(ignored -> PortalScanner.scan(world, gameArea)).whenComplete((positions, throwable) -> {
+            
+            if (throwable != null) {
+                Logger.ERROR.log("Could not search the portal blocks of the arena \"" + arenaConfig.getName() + "\".");
+                throwable.printStackTrace();
+                return;
+            }
+            
+            Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> {
+                
+                // The arena could already be reset in the meantime.
+                if (Bukkit.getWorld(world.getUID()) == null) return;
+                
+                portalBlocks.addAll(positions);
+                Logger.DEBUG.log("[Portal Position-Cache] Founded " + portalBlocks.size() + " Portal blocks.");
+                
+                if (!reused) portalIndex.saveAsync(positions);
+            });
+        });
     
     }
     
@@ -644,9 +745,8 @@ public class Game {
     public void updateGameInfo() {
         MissileWars.getInstance().getSignRepository().getSigns(this).forEach(MWSign::update);
         
-        // Not always a scoreboard update/reset is needed, because the Game-Timer are always update it.
-        // But the most team player changes (join/leave/switch) needs a scoreboard reset, to delete the old line entry.
-        scoreboardManager.resetScoreboard();
+        // Only the changed lines are updated. The scoreboard is only created again if the arena has changed.
+        scoreboardManager.refreshScoreboard();
         if (state == GameState.LOBBY) players.forEach((uuid, mwPlayer) -> mwPlayer.getGameJoinMenu().getMenu());
         
         Logger.DEBUG.log("Updated signs, scoreboard and menus.");
@@ -755,22 +855,88 @@ public class Game {
     /**
      * This method checks all previously saved portal positions to see whether the 
      * portals are still intact. If not, the game-end is initiated.
-     * 
-     * This could be a more performant version than using the high-frequency 
-     * "BlockPhysicsEvent" event-listener.
+     * <p>
+     * The portal destruction is normally detected by the block events (see 
+     * {@link #checkPortalBreak(Block)}). This check is only a low-frequency safety 
+     * net for block changes without an event. Portal blocks in unloaded chunks 
+     * can't be destroyed, so these chunks are skipped.
      */
     public void checkPortals() {
         
-        // Note: The 'BlockDestroyEvent' is only available on PaperMC.
+        if (state != GameState.INGAME) return;
         
-        for (Location location : portalBlocks) {
+        World world = portalBlocks.getWorld();
+        if (world == null) return;
+        
+        LongObjectHashMap<LongHashSet> chunks = portalBlocks.getChunks();
+        for (long chunkKey : chunks.keys()) {
             
-            if (location.getBlock().getType() == Material.NETHER_PORTAL) continue;
+            if (!world.isChunkLoaded((int) chunkKey, (int) (chunkKey >> 32))) continue;
             
-            runWinnerCheck(location);
-            return;
+            for (long position : chunks.get(chunkKey).toArray()) {
+                if (isPortalIntact(world, position)) continue;
+                
+                runWinnerCheck(PackedPosition.toLocation(position, world));
+                return;
+            }
         }
     }
+    
+    /**
+     * This method is called for blocks that are definitely removed (e.g. by an explosion 
+     * or a block break). If one of them is a saved portal block, the game-end is 
+     * initiated in the same tick.
+     * 
+     * @param block (Block) the removed block
+     * @return true, if the block was a portal block of the arena
+     */
+    public boolean checkPortalBreak(Block block) {
+        
+        if (state != GameState.INGAME) return false;
+        if (!portalBlocks.contains(block)) return false;
+        
+        runWinnerCheck(block.getLocation());
+        return true;
+    }
+    
+    /**
+     * This method is called for blocks that received a block update. A saved portal block 
+     * could be removed afterwards (e.g. if its frame was destroyed), so it is checked 
+     * again at the beginning of the next tick.
+     * 
+     * @param block (Block) the updated block
+     */
+    public void checkPortalUpdate(Block block) {
+        
+        if (state != GameState.INGAME) return;
+        if (!portalBlocks.contains(block)) return;
+        
+        pendingPortalChecks.add(PackedPosition.pack(block.getX(), block.getY(), block.getZ()));
+        if (portalCheckScheduled) return;
+        
+        portalCheckScheduled = true;
+        Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> {
+            portalCheckScheduled = false;
+            
+            long[] positions = pendingPortalChecks.toArray();
+            pendingPortalChecks.clear();
+            
+            if (state != GameState.INGAME) return;
+            
+            World world = portalBlocks.getWorld();
+            for (long position : positions) {
+                if (isPortalIntact(world, position)) continue;
+                
+                runWinnerCheck(PackedPosition.toLocation(position, world));
+                return;
+            }
+        });
+    }
+    
+    private static boolean isPortalIntact(World world, long position) {
+        return world.getBlockAt(PackedPosition.getX(position), PackedPosition.getY(position), 
+                PackedPosition.getZ(position)).getType() == Material.NETHER_PORTAL;
+    }
 
     /**
      * This method determines the winning team based on the position of the destroyed 
@@ -0,0 +1,138 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.game;
+
+import de.butzlabben.missilewars.util.LongObjectHashMap;
+import de.butzlabben.missilewars.util.geometry.GameArea;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.*;
+
+/**
+ * This class is a spatial index of the games. It's keyed by the world and holds the
+ * arena game of the world and the lobby areas of the world, grouped by the chunks they
+ * cover. A lookup doesn't create any objects.
+ * <p>
+ * The index is immutable. It's rebuilt by the {@link GameManager} when the games or
+ * their arenas change.
+ */
+class GameIndex {
+
+    static final GameIndex EMPTY = new GameIndex(Collections.emptyList());
+
+    private final Map<UUID, WorldEntry> worlds = new HashMap<>();
+
+    GameIndex(Collection<Game> games) {
+        for (Game game : games) {
+            GameArea lobbyArea = game.getGameConfig().getArea();
+            if ((lobbyArea != null) && (lobbyArea.getWorld() != null)) {
+                getEntry(lobbyArea.getWorld()).addLobby(game, lobbyArea);
+            }
+
+            // The arena world is not set during the map voting phase.
+            GameArea gameArea = game.getGameArea();
+            if ((gameArea != null) && (gameArea.getWorld() != null)) {
+                WorldEntry entry = getEntry(gameArea.getWorld());
+                if (entry.arenaGame == null) entry.arenaGame = game;
+            }
+        }
+    }
+
+    private WorldEntry getEntry(World world) {
+        return worlds.computeIfAbsent(world.getUID(), uuid -> new WorldEntry());
+    }
+
+    /**
+     * This method gets the game of the location. A lobby area takes precedence over
+     * an arena world.
+     *
+     * @param location (Location) the target location
+     * @return (Game) the game or 'null'
+     */
+    Game getGame(Location location) {
+        return getGame(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * This method gets the game of the block position. A lobby area takes precedence over
+     * an arena world.
+     *
+     * @param world (World) the target world
+     * @return (Game) the game or 'null'
+     */
+    Game getGame(World world, int x, int y, int z) {
+        if (world == null) return null;
+
+        WorldEntry entry = worlds.get(world.getUID());
+        if (entry == null) return null;
+
+        LobbyBucket bucket = entry.lobbyChunks.get(Chunk.getChunkKey(x >> 4, z >> 4));
+        if (bucket != null) {
+            for (int i = 0; i < bucket.games.length; i++) {
+                if (bucket.areas[i].contains(x, y, z)) return bucket.games[i];
+            }
+        }
+
+        return entry.arenaGame;
+    }
+
+    private static class WorldEntry {
+
+        private final LongObjectHashMap<LobbyBucket> lobbyChunks = new LongObjectHashMap<>();
+        private Game arenaGame;
+
+        private void addLobby(Game game, GameArea area) {
+            for (int chunkX = area.getMinX() >> 4; chunkX <= area.getMaxX() >> 4; chunkX++) {
+                for (int chunkZ = area.getMinZ() >> 4; chunkZ <= area.getMaxZ() >> 4; chunkZ++) {
+                    long chunkKey = Chunk.getChunkKey(chunkX, chunkZ);
+                    LobbyBucket bucket = lobbyChunks.get(chunkKey);
+                    lobbyChunks.put(chunkKey, bucket == null ? new LobbyBucket(game, area) : bucket.with(game, area));
+                }
+            }
+        }
+    }
+
+    /**
+     * The games (and their lobby areas) of a chunk. Usually it's only one.
+     */
+    private static class LobbyBucket {
+
+        private final Game[] games;
+        private final GameArea[] areas;
+
+        private LobbyBucket(Game game, GameArea area) {
+            this(new Game[] {game}, new GameArea[] {area});
+        }
+
+        private LobbyBucket(Game[] games, GameArea[] areas) {
+            this.games = games;
+            this.areas = areas;
+        }
+
+        private LobbyBucket with(Game game, GameArea area) {
+            Game[] newGames = Arrays.copyOf(games, games.length + 1);
+            GameArea[] newAreas = Arrays.copyOf(areas, areas.length + 1);
+            newGames[games.length] = game;
+            newAreas[areas.length] = area;
+            return new LobbyBucket(newGames, newAreas);
+        }
+    }
+}
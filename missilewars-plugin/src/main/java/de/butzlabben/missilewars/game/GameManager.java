@@ -23,11 +23,14 @@ import de.butzlabben.missilewars.MissileWars;
 import de.butzlabben.missilewars.configuration.Config;
 import de.butzlabben.missilewars.configuration.game.GameConfig;
 import de.butzlabben.missilewars.game.enums.GameState;
+import de.butzlabben.missilewars.player.PlayerRegionTracker;
 import de.butzlabben.missilewars.util.geometry.GameArea;
 import de.butzlabben.missilewars.util.serialization.Serializer;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 
 import java.io.File;
 import java.io.IOException;
@@ -42,11 +45,14 @@ public class GameManager {
     @Getter
     private static final GameManager instance = new GameManager();
     private final Map<String, Game> games = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private volatile GameIndex gameIndex = GameIndex.EMPTY;
 
 
     public void disableAll() {
         games.values().forEach(Game::disableGameOnServerStop);
         games.clear();
+        updateGameIndex();
     }
 
     public void restartAll() {
@@ -152,6 +158,7 @@ public class GameManager {
 
         // delete the old game from the list
         games.remove(targetGameName);
+        updateGameIndex();
 
         Logger.DEBUG.log("Old game disabled.");
 
@@ -177,19 +184,46 @@ public class GameManager {
 
     public void addGame(String name, Game game) {
         games.put(name, game);
+        updateGameIndex();
+    }
+
+    /**
+     * This method rebuilds the location index of the games. It must be called when
+     * a game is added or removed or when the arena of a game is set. The cached
+     * regions of the players are updated as well.
+     */
+    public void updateGameIndex() {
+        gameIndex = new GameIndex(games.values());
+        PlayerRegionTracker.getInstance().refreshAll();
     }
 
     public int getGameAmount() {
         return games.size();
     }
 
+    /**
+     * This method gets the game based of the location. It's either inside
+     * the game lobby (representing as an area) or inside the game arena
+     * (representing as a world).
+     *
+     * @param location (Location) the target location
+     *
+     * @return the Game Object if existing for the location
+     */
     public Game getGame(Location location) {
-        for (Game game : GameManager.getInstance().getGames().values()) {
-            if (game.isIn(location)) {
-                return game;
-            }
-        }
-        return null;
+        return gameIndex.getGame(location);
+    }
+
+    /**
+     * This method gets the game based of the block position, without creating
+     * a Location object.
+     *
+     * @param world (World) the target world
+     *
+     * @return the Game Object if existing for the block position
+     */
+    public Game getGame(World world, int x, int y, int z) {
+        return gameIndex.getGame(world, x, y, z);
     }
     
 }
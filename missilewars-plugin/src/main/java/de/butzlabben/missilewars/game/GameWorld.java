@@ -21,11 +21,14 @@ package de.butzlabben.missilewars.game;
 import de.butzlabben.missilewars.Logger;
 import de.butzlabben.missilewars.configuration.Config;
 import de.butzlabben.missilewars.configuration.PluginMessages;
+import de.butzlabben.missilewars.game.regeneration.ArenaRegenerator;
+import de.butzlabben.missilewars.game.regeneration.RegenerableArena;
+import de.butzlabben.missilewars.util.geometry.GameArea;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import lombok.Getter;
 import lombok.ToString;
-import org.apache.commons.io.FileUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.GameRule;
 import org.bukkit.World;
@@ -42,6 +45,8 @@ public class GameWorld {
     private final Game game;
     private final Object lock = new Object();
     private String worldName;
+    private RegenerableArena regenerableArena;
+    private boolean reused;
 
     public GameWorld(Game game, String templateName) {
         this.templateName = templateName;
@@ -88,20 +93,57 @@ public class GameWorld {
         }
     }
 
+    /**
+     * This method hands the world back for an in-place restore, if the arena regeneration
+     * is used for it. The world stays loaded then.
+     *
+     * @return true, if the world is restored in place and must not be unloaded
+     */
+    public boolean regenerate() {
+        if (regenerableArena == null) return false;
+
+        boolean kept = ArenaRegenerator.getInstance().release(regenerableArena);
+        regenerableArena = null;
+        return kept;
+    }
+
+    public boolean isRegenerating() {
+        return (regenerableArena != null) && regenerableArena.isRestoring();
+    }
+
+    /**
+     * This method returns the restore of a reused world. A freshly loaded world is
+     * complete right away.
+     *
+     * @return (CompletableFuture) completes on the main thread when the world is restored
+     */
+    public CompletableFuture<Void> whenRestored() {
+        if (regenerableArena == null) return CompletableFuture.completedFuture(null);
+        return regenerableArena.whenRestored();
+    }
+
     public void delete() {
         synchronized (lock) {
             Logger.DEBUG.log("Deleting old world");
-            File file = new File(worldName);
-            FileUtils.deleteQuietly(file);
-            if (file.exists() || file.isDirectory()) {
-                Logger.WARN.log("Could not delete old world!");
-                file.delete();
-            }
+            WorldDeleter.getInstance().delete(new File(Bukkit.getWorldContainer(), worldName));
         }
     }
 
     public void load() {
         synchronized (lock) {
+            reused = false;
+
+            if (Config.isArenaRegeneration()) {
+                regenerableArena = ArenaRegenerator.getInstance().take(templateName);
+                if (regenerableArena != null) {
+                    reused = true;
+                    worldName = regenerableArena.getWorld().getName();
+                    Logger.DEBUG.log("[Arena-Regeneration] Reusing the game world \"" + worldName + "\".");
+                    applyGameRules(regenerableArena.getWorld());
+                    return;
+                }
+            }
+
             int i = 0;
             File file;
             do {
@@ -110,27 +152,49 @@ public class GameWorld {
                 i++;
             } while (file.exists() || file.isDirectory());
 
-            File arenasFolder = new File(Config.getArenasFolder());
-            File newFile = new File(arenasFolder, templateName);
+            long startTime = System.currentTimeMillis();
 
-            try {
-                FileUtils.copyDirectory(newFile, file);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            // A prepared copy of the world pool only needs to be moved to the world name.
+            File pooledCopy = WorldPool.getInstance().take(templateName);
+            if ((pooledCopy != null) && pooledCopy.renameTo(file)) {
+                Logger.DEBUG.log("[World-Pool] Took a prepared copy of the arena template \"" + templateName + "\".");
+            } else {
+                if (pooledCopy != null) WorldDeleter.getInstance().delete(pooledCopy);
+
+                File arenasFolder = new File(Config.getArenasFolder());
+                File newFile = new File(arenasFolder, templateName);
 
-            File uid = new File(file, "uid.dat");
-            if (uid.isFile()) FileUtils.deleteQuietly(uid);
+                try {
+                    TemplateCloner.clone(newFile, file);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+
+                Logger.DEBUG.log("[World-Pool] No prepared copy available. Copied the arena template \"" + templateName + "\" in "
+                        + (System.currentTimeMillis() - startTime) + " ms.");
+            }
 
             Logger.DEBUG.log("Loading new gameworld");
+            long loadTime = System.currentTimeMillis();
             World world = Bukkit.createWorld(new WorldCreator(worldName));
             Bukkit.getWorlds().add(world);
+            Logger.DEBUG.log("[World-Pool] Loaded the game world \"" + worldName + "\" in " 
+                    + (System.currentTimeMillis() - loadTime) + " ms.");
             
             Logger.DEBUG.log("Worlds: " + Bukkit.getWorlds());
 
-            world.setGameRule(GameRule.DO_TILE_DROPS, game.getArenaConfig().isDoTileDrops());
-            world.setGameRule(GameRule.KEEP_INVENTORY, game.getArenaConfig().isKeepInventory());
+            applyGameRules(world);
+
+            if (Config.isArenaRegeneration()) {
+                regenerableArena = ArenaRegenerator.getInstance().register(world, templateName,
+                        new GameArea(world, game.getArenaConfig().getAreaConfig()));
+            }
         }
     }
 
+    private void applyGameRules(World world) {
+        world.setGameRule(GameRule.DO_TILE_DROPS, game.getArenaConfig().isDoTileDrops());
+        world.setGameRule(GameRule.KEEP_INVENTORY, game.getArenaConfig().isKeepInventory());
+    }
+
 }
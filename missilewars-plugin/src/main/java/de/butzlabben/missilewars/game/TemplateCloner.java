@@ -0,0 +1,216 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.game;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.configuration.Config;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class clones an arena template into a new world folder.
+ * <p>
+ * The template is walked with NIO and the files are copied in parallel with
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, so
+ * the kernel can copy the data without passing it through the JVM. Files which are not
+ * needed for a game world (e.g. 'uid.dat' or the map and raid data in 'data/') are
+ * skipped in the same pass.
+ * <p>
+ * The prepared copies of the world pool are made in the background, while a game waits
+ * for its clone on the main thread. Both use their own threads, so a blocking clone
+ * never waits behind the background copies.
+ * <p>
+ * Optionally, a copy-on-write clone ("reflink") is tried first. This only works on
+ * filesystems that support it (e.g. Btrfs, XFS) and falls back to the normal copy.
+ * Hard links are not used, because the server writes the region files in place and
+ * would change the template with it.
+ */
+public class TemplateCloner {
+
+    private static final Set<String> SKIPPED_FILES = Set.of("uid.dat", "session.lock", "level.dat_old");
+    private static final Set<String> SKIPPED_DIRECTORIES = Set.of("data");
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static ExecutorService executor;
+    private static ExecutorService backgroundExecutor;
+
+    /**
+     * This method clones the template folder into the target folder. The target folder
+     * must not exist yet.
+     *
+     * @param template (File) the arena template folder
+     * @param target (File) the new world folder
+     * @throws IOException if the template could not be cloned
+     */
+    public static void clone(File template, File target) throws IOException {
+        clone(template, target, false);
+    }
+
+    /**
+     * This method clones the template folder into the target folder. The target folder
+     * must not exist yet.
+     *
+     * @param template (File) the arena template folder
+     * @param target (File) the new world folder
+     * @param background (boolean) true, if no game waits for the clone (e.g. the world pool)
+     * @throws IOException if the template could not be cloned
+     */
+    public static void clone(File template, File target, boolean background) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        if (Config.isCloneReflink() && cloneReflink(template, target)) {
+            Logger.DEBUG.log("[Template-Cloner] Cloned \"" + template.getName() + "\" as reflink in "
+                    + (System.currentTimeMillis() - startTime) + " ms.");
+            return;
+        }
+
+        Path source = template.toPath();
+        Path destination = target.toPath();
+        List<Future<Long>> copies = new ArrayList<>();
+        ExecutorService pool = getExecutor(background);
+
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (source.equals(dir.getParent()) && SKIPPED_DIRECTORIES.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(destination.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (SKIPPED_FILES.contains(file.getFileName().toString())) return FileVisitResult.CONTINUE;
+
+                Path targetFile = destination.resolve(source.relativize(file));
+                copies.add(pool.submit(() -> copyFile(file, targetFile)));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        long bytes = 0;
+        try {
+            for (Future<Long> copy : copies) {
+                bytes += copy.get();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            copies.forEach(copy -> copy.cancel(true));
+            throw new IOException("The clone of \"" + template.getName() + "\" was interrupted", exception);
+        } catch (ExecutionException exception) {
+            copies.forEach(copy -> copy.cancel(true));
+            throw new IOException("Could not clone \"" + template.getName() + "\"", exception.getCause());
+        }
+
+        long duration = Math.max(1, System.currentTimeMillis() - startTime);
+        Logger.DEBUG.log("[Template-Cloner] Cloned \"" + template.getName() + "\" (" + copies.size() + " files, "
+                + toMegabytes(bytes) + " MB) in " + duration + " ms (" + toMegabytes(bytes * 1000 / duration) + " MB/s).");
+    }
+
+    private static long copyFile(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * This method tries to clone the template with a copy-on-write reflink of the
+     * system 'cp' command.
+     *
+     * @return true, if the reflink clone was successful
+     */
+    private static boolean cloneReflink(File template, File target) {
+        try {
+            Process process = new ProcessBuilder("cp", "-r", "--reflink=always", template.getAbsolutePath(), target.getAbsolutePath())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+
+            if (process.waitFor() == 0) {
+                for (String skippedFile : SKIPPED_FILES) {
+                    FileUtils.deleteQuietly(new File(target, skippedFile));
+                }
+                for (String skippedDirectory : SKIPPED_DIRECTORIES) {
+                    FileUtils.deleteQuietly(new File(target, skippedDirectory));
+                }
+                return true;
+            }
+        } catch (IOException exception) {
+            Logger.DEBUG.log("[Template-Cloner] Reflink clone is not available: " + exception.getMessage());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        Logger.DEBUG.log("[Template-Cloner] Reflink clone of \"" + template.getName() + "\" failed. Using the normal copy.");
+        FileUtils.deleteQuietly(target);
+        return false;
+    }
+
+    private static synchronized ExecutorService getExecutor(boolean background) {
+        if (background) {
+            if (backgroundExecutor == null) backgroundExecutor = createExecutor("MissileWars Template-Cloner (Background) #");
+            return backgroundExecutor;
+        }
+
+        if (executor == null) executor = createExecutor("MissileWars Template-Cloner #");
+        return executor;
+    }
+
+    private static ExecutorService createExecutor(String threadName) {
+        return Executors.newFixedThreadPool(Math.max(1, Config.getCloneThreads()), runnable -> {
+            Thread thread = new Thread(runnable, threadName + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static String toMegabytes(long bytes) {
+        return String.format("%.1f", bytes / 1024.0 / 1024.0);
+    }
+
+    /**
+     * This method stops the copy threads.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) executor.shutdownNow();
+        if (backgroundExecutor != null) backgroundExecutor.shutdownNow();
+
+        executor = null;
+        backgroundExecutor = null;
+    }
+}
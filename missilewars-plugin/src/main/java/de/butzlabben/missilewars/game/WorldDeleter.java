@@ -0,0 +1,208 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.game;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.MissileWars;
+import lombok.Getter;
+import org.apache.commons.io.FileUtils;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class deletes old arena worlds in the background.
+ * <p>
+ * A world folder is renamed to a tombstone name first. This is a cheap operation, so the
+ * world name is free again immediately and the main thread doesn't have to wait for the
+ * file system. The tombstones are deleted by a single background thread. A failed
+ * deletion is retried a few times with a growing delay.
+ * <p>
+ * All tombstones are saved in a journal file in the plugin folder. Tombstones which
+ * could not be deleted before the server stopped are deleted after the next start.
+ */
+public class WorldDeleter {
+
+    @Getter
+    private static final WorldDeleter instance = new WorldDeleter();
+
+    private static final String TEMP_WORLD_PREFIX = "mw-";
+    private static final String TOMBSTONE_PREFIX = "mw-deleted-";
+    private static final String JOURNAL_FILE = "pending-deletions.txt";
+    private static final int MAX_QUEUE_SIZE = 64;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_DELAY = 10;
+
+    private final Set<String> pendingDeletions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicInteger tombstoneCounter = new AtomicInteger();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MissileWars World-Deleter");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * This method moves a world folder out of the way and deletes it in the background.
+     * The world must already be unloaded.
+     *
+     * @param worldFolder (File) the world folder
+     */
+    public void delete(File worldFolder) {
+        if (!worldFolder.exists()) return;
+
+        File tombstone = toTombstone(worldFolder);
+        pendingDeletions.add(tombstone.getAbsolutePath());
+        executor.execute(this::saveJournal);
+        enqueue(tombstone);
+    }
+
+    /**
+     * This method deletes the old MissileWars (temporary) worlds of the last server session
+     * and the tombstones of the journal. The folders are only renamed here, so that the new
+     * arena worlds can use their names. The deletion itself is done in the background.
+     */
+    public void deleteTempWorlds() {
+        for (String path : readJournal()) {
+            File tombstone = new File(path);
+            if (tombstone.exists()) pendingDeletions.add(tombstone.getAbsolutePath());
+        }
+
+        File[] dirs = Bukkit.getWorldContainer().listFiles();
+        if (dirs != null) {
+            for (File dir : dirs) {
+                if (!dir.getName().startsWith(TEMP_WORLD_PREFIX)) continue;
+
+                File tombstone = dir.getName().startsWith(TOMBSTONE_PREFIX) ? dir : toTombstone(dir);
+                pendingDeletions.add(tombstone.getAbsolutePath());
+            }
+        }
+
+        if (pendingDeletions.isEmpty()) return;
+
+        Logger.DEBUG.log("[World-Deleter] Deleting " + pendingDeletions.size() + " old world folder(s) in the background.");
+        executor.execute(this::saveJournal);
+        for (String path : new ArrayList<>(pendingDeletions)) {
+            enqueue(new File(path));
+        }
+    }
+
+    private File toTombstone(File worldFolder) {
+        File tombstone = new File(worldFolder.getParentFile(), TOMBSTONE_PREFIX + worldFolder.getName()
+                + "-" + System.currentTimeMillis() + "-" + tombstoneCounter.getAndIncrement());
+
+        if (worldFolder.renameTo(tombstone)) return tombstone;
+
+        // The folder is still in use (e.g. on Windows). It's deleted under its old name then.
+        Logger.DEBUG.log("[World-Deleter] Could not rename \"" + worldFolder.getName() + "\". Deleting it under its old name.");
+        return worldFolder;
+    }
+
+    private void enqueue(File tombstone) {
+        if (queueSize.incrementAndGet() > MAX_QUEUE_SIZE) {
+            queueSize.decrementAndGet();
+            Logger.WARN.log("The world deletion queue is full. \"" + tombstone.getName() + "\" will be deleted after the next restart.");
+            return;
+        }
+
+        executor.execute(() -> run(tombstone, 1));
+    }
+
+    private void run(File tombstone, int attempt) {
+        long startTime = System.currentTimeMillis();
+
+        try {
+            FileUtils.deleteDirectory(tombstone);
+        } catch (IOException | IllegalArgumentException exception) {
+            if (attempt < MAX_ATTEMPTS) {
+                Logger.DEBUG.log("[World-Deleter] Could not delete \"" + tombstone.getName() + "\" (attempt " + attempt
+                        + "). Retrying in " + (RETRY_DELAY * attempt) + " seconds.");
+                executor.schedule(() -> run(tombstone, attempt + 1), RETRY_DELAY * attempt, TimeUnit.SECONDS);
+                return;
+            }
+
+            Logger.WARN.log("Could not delete the old world folder \"" + tombstone.getName() + "\". Retrying after the next restart.");
+            queueSize.decrementAndGet();
+            return;
+        }
+
+        Logger.DEBUG.log("[World-Deleter] Deleted \"" + tombstone.getName() + "\" in " + (System.currentTimeMillis() - startTime) + " ms.");
+        pendingDeletions.remove(tombstone.getAbsolutePath());
+        queueSize.decrementAndGet();
+        saveJournal();
+    }
+
+    private List<String> readJournal() {
+        File journal = getJournalFile();
+        if (!journal.isFile()) return List.of();
+
+        try {
+            return Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException exception) {
+            Logger.WARN.log("Could not read the world deletion journal.");
+            exception.printStackTrace();
+            return List.of();
+        }
+    }
+
+    private synchronized void saveJournal() {
+        File journal = getJournalFile();
+
+        try {
+            if (pendingDeletions.isEmpty()) {
+                Files.deleteIfExists(journal.toPath());
+                return;
+            }
+
+            journal.getParentFile().mkdirs();
+            File tempFile = new File(journal.getParentFile(), JOURNAL_FILE + ".tmp");
+            Files.write(tempFile.toPath(), pendingDeletions, StandardCharsets.UTF_8);
+            Files.move(tempFile.toPath(), journal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException exception) {
+            Logger.WARN.log("Could not save the world deletion journal.");
+            exception.printStackTrace();
+        }
+    }
+
+    private File getJournalFile() {
+        return new File(MissileWars.getInstance().getDataFolder(), JOURNAL_FILE);
+    }
+
+    /**
+     * This method stops the background deletions. The remaining tombstones are saved in
+     * the journal and deleted after the next start.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        saveJournal();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.game;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.configuration.Config;
+import lombok.Getter;
+import org.apache.commons.io.FileUtils;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class keeps ready-to-load copies of the arena templates in the world container,
+ * so that {@link GameWorld#load()} only has to create the world and doesn't need to copy
+ * the template during the lobby phase.
+ * <p>
+ * The copies are made on a single background I/O thread. A refill is requested while the
+ * games are in the INGAME or END phase, so that the copy doesn't compete with the world
+ * loading of the lobby phase.
+ */
+public class WorldPool {
+
+    @Getter
+    private static final WorldPool instance = new WorldPool();
+
+    private static final String POOL_PREFIX = "mw-pool-";
+
+    private final Map<String, Queue<File>> readyCopies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> pendingCopies = new ConcurrentHashMap<>();
+    private final AtomicInteger copyCounter = new AtomicInteger();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MissileWars World-Pool");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * This method takes a prepared copy of the template out of the pool.
+     *
+     * @param templateName (String) the name of the arena template
+     * @return (File) the world folder of the copy or 'null', if no copy is ready
+     */
+    public File take(String templateName) {
+        Queue<File> copies = readyCopies.get(templateName);
+        if (copies == null) return null;
+
+        File copy;
+        while ((copy = copies.poll()) != null) {
+            if (copy.isDirectory()) return copy;
+        }
+        return null;
+    }
+
+    /**
+     * This method requests new copies of the template until the pool size is reached.
+     * The copies are made in the background.
+     *
+     * @param templateName (String) the name of the arena template
+     * @param poolSize (int) the amount of copies to keep ready
+     */
+    public void refill(String templateName, int poolSize) {
+        if (poolSize <= 0) return;
+
+        Queue<File> copies = readyCopies.computeIfAbsent(templateName, key -> new ConcurrentLinkedQueue<>());
+        AtomicInteger pending = pendingCopies.computeIfAbsent(templateName, key -> new AtomicInteger());
+
+        while (copies.size() + pending.get() < poolSize) {
+            pending.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    File copy = createCopy(templateName);
+                    if (copy != null) copies.add(copy);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private File createCopy(String templateName) {
+        File template = new File(Config.getArenasFolder(), templateName);
+        File copy = new File(Bukkit.getWorldContainer(), POOL_PREFIX + templateName + "-" + copyCounter.getAndIncrement());
+
+        long startTime = System.currentTimeMillis();
+        try {
+            TemplateCloner.clone(template, copy, true);
+        } catch (IOException exception) {
+            Logger.ERROR.log("Could not copy the arena template \"" + templateName + "\" into the world pool.");
+            exception.printStackTrace();
+            FileUtils.deleteQuietly(copy);
+            return null;
+        }
+
+        Logger.DEBUG.log("[World-Pool] Copied the arena template \"" + templateName + "\" in "
+                + (System.currentTimeMillis() - startTime) + " ms.");
+        return copy;
+    }
+
+    /**
+     * This method stops the background copies. The remaining copies are removed
+     * together with the other temporary worlds.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        readyCopies.clear();
+    }
+}
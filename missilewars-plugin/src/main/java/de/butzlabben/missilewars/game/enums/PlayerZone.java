@@ -0,0 +1,39 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.butzlabben.missilewars.game.enums;
+
+/**
+ * The zone of a game in which a player is located.
+ */
+public enum PlayerZone {
+
+    /** The player is not in any game. */
+    OUTSIDE,
+    /** The player is inside the lobby area of the game. */
+    LOBBY,
+    /** The player is in the arena world, but outside of the game area. */
+    GAME_WORLD,
+    /** The player is inside the game area, but outside of the inner game area. */
+    ARENA,
+    /** The player is inside the inner game area (between the team spawns). */
+    INNER_ARENA;
+
+    public boolean isInGameWorld() {
+        return (this == GAME_WORLD) || (this == ARENA) || (this == INNER_ARENA);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.game.portal;
+
+import de.butzlabben.missilewars.util.LongHashSet;
+import de.butzlabben.missilewars.util.LongObjectHashMap;
+import de.butzlabben.missilewars.util.geometry.PackedPosition;
+import lombok.Getter;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.Collection;
+
+/**
+ * This class holds the portal block positions of an arena as packed long values,
+ * grouped by their chunk. A block can be checked in O(1) without creating any
+ * objects, so it can be used in high-frequency block event handlers.
+ */
+public class PortalBlocks {
+
+    @Getter private World world;
+    private final LongHashSet positions = new LongHashSet();
+    private final LongObjectHashMap<LongHashSet> chunks = new LongObjectHashMap<>();
+
+    /**
+     * This method sets the arena world of the portal blocks. Positions of other
+     * worlds are never contained.
+     *
+     * @param world (World) the arena world
+     */
+    public void setWorld(World world) {
+        this.world = world;
+    }
+
+    public void add(long packedPosition) {
+        if (!positions.add(packedPosition)) return;
+
+        long chunkKey = Chunk.getChunkKey(PackedPosition.getX(packedPosition) >> 4, PackedPosition.getZ(packedPosition) >> 4);
+        LongHashSet chunk = chunks.get(chunkKey);
+        if (chunk == null) {
+            chunk = new LongHashSet();
+            chunks.put(chunkKey, chunk);
+        }
+        chunk.add(packedPosition);
+    }
+
+    public void addAll(long[] packedPositions) {
+        for (long packedPosition : packedPositions) {
+            add(packedPosition);
+        }
+    }
+
+    public void addAll(Collection<Location> locations) {
+        for (Location location : locations) {
+            add(PackedPosition.pack(location));
+        }
+    }
+
+    public boolean contains(Block block) {
+        if (block.getWorld() != world) return false;
+
+        return positions.contains(PackedPosition.pack(block.getX(), block.getY(), block.getZ()));
+    }
+
+    public boolean contains(long packedPosition) {
+        return positions.contains(packedPosition);
+    }
+
+    /**
+     * This method returns the portal block positions of a chunk.
+     *
+     * @param chunkKey (long) the chunk key, see {@link Chunk#getChunkKey(int, int)}
+     * @return (LongHashSet) the packed portal positions or 'null' if the chunk has no portal blocks
+     */
+    public LongHashSet getChunk(long chunkKey) {
+        return chunks.get(chunkKey);
+    }
+
+    public LongObjectHashMap<LongHashSet> getChunks() {
+        return chunks;
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    public boolean isEmpty() {
+        return positions.isEmpty();
+    }
+
+    public long[] toArray() {
+        return positions.toArray();
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.game.portal;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.MissileWars;
+import de.butzlabben.missilewars.configuration.AreaConfig;
+import de.butzlabben.missilewars.configuration.Config;
+import de.butzlabben.missilewars.configuration.arena.ArenaConfig;
+import de.butzlabben.missilewars.game.TemplateCloner;
+import de.butzlabben.missilewars.game.WorldDeleter;
+import de.butzlabben.missilewars.util.geometry.GameArea;
+import de.butzlabben.missilewars.util.geometry.PackedPosition;
+import org.apache.commons.io.FileUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.WorldCreator;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * This class manages the portal index file of an arena. The index is a sidecar file next
+ * to the template folder (in the arenas folder) and holds the packed portal block
+ * positions inside the game area of the arena. The arena name and the bounds of the game
+ * area are saved in the index, so an index of another arena with the same template or of
+ * changed bounds is not used.
+ * <p>
+ * The index is bound to a SHA-256 hash of the template region files. A cheap fingerprint
+ * of the region file names, sizes and modification times is saved as well, so that an
+ * unchanged template can be validated without reading the region files. If only the
+ * fingerprint differs, the content hash decides whether the index is still valid.
+ */
+public class PortalIndex {
+
+    private static final String FILE_EXTENSION = ".portals";
+    private static final int MAGIC = 0x4D57504F;
+    private static final int FORMAT_VERSION = 2;
+
+    private final String templateName;
+    private final String arenaName;
+    private final AreaConfig area;
+    private final File templateFolder;
+    private final File indexFile;
+
+    public PortalIndex(ArenaConfig arenaConfig) {
+        File arenasFolder = new File(Config.getArenasFolder());
+
+        this.templateName = arenaConfig.getTemplateWorld();
+        this.arenaName = arenaConfig.getName();
+        this.area = arenaConfig.getAreaConfig();
+        this.templateFolder = new File(arenasFolder, templateName);
+        // Several arenas can use the same template with different game areas.
+        this.indexFile = new File(arenasFolder, templateName + "." + getFileName(arenaName) + FILE_EXTENSION);
+    }
+
+    /**
+     * This method reads the saved portal positions of the template. If the fingerprint of
+     * the region files differs, their content hash is checked in the background.
+     *
+     * @return (CompletableFuture) the packed portal block positions or 'null', if no index
+     * exists or the template was changed since the index was built
+     */
+    public CompletableFuture<long[]> load() {
+        if (!indexFile.isFile()) return CompletableFuture.completedFuture(null);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                Logger.WARN.log("The portal index of the arena template \"" + templateName + "\" has an unknown format.");
+                return CompletableFuture.completedFuture(null);
+            }
+
+            if (!in.readUTF().equals(arenaName) || !readArea(in)) return CompletableFuture.completedFuture(null);
+
+            long fingerprint = in.readLong();
+            byte[] hash = new byte[in.readInt()];
+            in.readFully(hash);
+
+            long[] positions = new long[in.readInt()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = in.readLong();
+            }
+
+            File[] regionFiles = getRegionFiles();
+            if (fingerprint == getFingerprint(regionFiles)) return CompletableFuture.completedFuture(positions);
+
+            // The files were touched, but the content could still be the same:
+            CompletableFuture<long[]> future = new CompletableFuture<>();
+            Bukkit.getScheduler().runTaskAsynchronously(MissileWars.getInstance(), () -> {
+                try {
+                    if (!Arrays.equals(hash, getContentHash(regionFiles))) {
+                        future.complete(null);
+                        return;
+                    }
+                } catch (IOException exception) {
+                    Logger.WARN.log("Could not read the arena template \"" + templateName + "\" for the portal index.");
+                    exception.printStackTrace();
+                    future.complete(null);
+                    return;
+                }
+
+                future.complete(positions);
+                write(positions, regionFiles, hash);
+            });
+            return future;
+
+        } catch (IOException exception) {
+            Logger.WARN.log("Could not read the portal index of the arena template \"" + templateName + "\".");
+            exception.printStackTrace();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * This method saves the portal positions for the current state of the template. It
+     * reads all region files of the template, so it should not run on the main thread.
+     *
+     * @param positions (long[]) the packed portal block positions
+     */
+    public void save(long[] positions) {
+        try {
+            File[] regionFiles = getRegionFiles();
+            write(positions, regionFiles, getContentHash(regionFiles));
+        } catch (IOException exception) {
+            Logger.ERROR.log("Could not save the portal index of the arena \"" + arenaName + "\".");
+            exception.printStackTrace();
+        }
+    }
+
+    private void write(long[] positions, File[] regionFiles, byte[] hash) {
+        File tempFile = null;
+
+        try {
+            // Each save uses its own temporary file, as the same index can be saved by several games at once.
+            tempFile = Files.createTempFile(indexFile.getParentFile().toPath(), indexFile.getName(), ".tmp").toFile();
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(arenaName);
+                writeArea(out);
+                out.writeLong(getFingerprint(regionFiles));
+                out.writeInt(hash.length);
+                out.write(hash);
+                out.writeInt(positions.length);
+                for (long position : positions) {
+                    out.writeLong(position);
+                }
+            }
+
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Logger.DEBUG.log("[Portal Position-Cache] Saved " + positions.length + " Portal blocks for the arena \""
+                    + arenaName + "\".");
+
+        } catch (IOException exception) {
+            FileUtils.deleteQuietly(tempFile);
+            Logger.ERROR.log("Could not save the portal index of the arena \"" + arenaName + "\".");
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * This method saves the portal positions in the background.
+     *
+     * @param portalBlocks (List) the portal block locations
+     */
+    public void saveAsync(List<Location> portalBlocks) {
+        long[] positions = portalBlocks.stream().mapToLong(PackedPosition::pack).toArray();
+        Bukkit.getScheduler().runTaskAsynchronously(MissileWars.getInstance(), () -> save(positions));
+    }
+
+    /**
+     * This method (re)builds the portal index of an arena. A temporary copy of the template
+     * world is loaded for this, searched for the portal blocks and deleted afterwards. The
+     * file operations are done in the background.
+     *
+     * @param arenaConfig (ArenaConfig) the target arena
+     * @param callback (Consumer) receives the amount of found portal blocks on the main
+     *                 thread, or -1 if the index could not be built
+     */
+    public static void build(ArenaConfig arenaConfig, Consumer<Integer> callback) {
+        PortalIndex portalIndex = new PortalIndex(arenaConfig);
+        String worldName = "mw-portalindex-" + getFileName(arenaConfig.getName());
+        File worldFolder = new File(Bukkit.getWorldContainer(), worldName);
+
+        Bukkit.getScheduler().runTaskAsynchronously(MissileWars.getInstance(), () -> {
+            try {
+                FileUtils.deleteQuietly(worldFolder);
+                TemplateCloner.clone(portalIndex.templateFolder, worldFolder, true);
+            } catch (IOException exception) {
+                Logger.ERROR.log("Could not copy the arena template \"" + portalIndex.templateName + "\" for the portal index.");
+                exception.printStackTrace();
+                Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> callback.accept(-1));
+                return;
+            }
+
+            Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> {
+                World world = Bukkit.createWorld(new WorldCreator(worldName));
+                if (world == null) {
+                    FileUtils.deleteQuietly(worldFolder);
+                    callback.accept(-1);
+                    return;
+                }
+                world.setAutoSave(false);
+
+                PortalScanner.scan(world, new GameArea(world, arenaConfig.getAreaConfig())).whenComplete((positions, throwable) -> {
+
+                    if (throwable == null) portalIndex.save(positions.stream().mapToLong(PackedPosition::pack).toArray());
+
+                    Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> {
+                        Bukkit.unloadWorld(world, false);
+                        WorldDeleter.getInstance().delete(worldFolder);
+                        callback.accept(throwable == null ? positions.size() : -1);
+                    });
+                });
+            });
+        });
+    }
+
+    /**
+     * This method writes the bounds of the game area. The portals are only searched
+     * inside of them, so the index is bound to the bounds as well.
+     */
+    private void writeArea(DataOutputStream out) throws IOException {
+        out.writeInt(area.getMinX());
+        out.writeInt(area.getMinY());
+        out.writeInt(area.getMinZ());
+        out.writeInt(area.getMaxX());
+        out.writeInt(area.getMaxY());
+        out.writeInt(area.getMaxZ());
+    }
+
+    private boolean readArea(DataInputStream in) throws IOException {
+        return (in.readInt() == area.getMinX()) & (in.readInt() == area.getMinY()) & (in.readInt() == area.getMinZ())
+                & (in.readInt() == area.getMaxX()) & (in.readInt() == area.getMaxY()) & (in.readInt() == area.getMaxZ());
+    }
+
+    private static String getFileName(String name) {
+        return name.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private File[] getRegionFiles() {
+        File[] regionFiles = new File(templateFolder, "region").listFiles((dir, name) -> name.endsWith(".mca"));
+        if (regionFiles == null) return new File[0];
+
+        Arrays.sort(regionFiles, Comparator.comparing(File::getName));
+        return regionFiles;
+    }
+
+    private static long getFingerprint(File[] regionFiles) {
+        long fingerprint = 1125899906842597L;
+        for (File file : regionFiles) {
+            fingerprint = 31 * fingerprint + file.getName().hashCode();
+            fingerprint = 31 * fingerprint + file.length();
+            fingerprint = 31 * fingerprint + file.lastModified();
+        }
+        return fingerprint;
+    }
+
+    private static byte[] getContentHash(File[] regionFiles) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IOException(exception);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        for (File file : regionFiles) {
+            digest.update(file.getName().getBytes());
+            try (InputStream in = new FileInputStream(file)) {
+                int length;
+                while ((length = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, length);
+                }
+            }
+        }
+        return digest.digest();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.game.portal;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.util.geometry.GameArea;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class searches the portal blocks of an arena. The chunks of the Game-Area are
+ * copied as chunk snapshots on the main thread and then searched in parallel - one
+ * task per chunk section - by a small worker pool.
+ */
+public class PortalScanner {
+
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "MissileWars Portal-Scanner #" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * This method takes the chunk snapshots of the Game-Area and starts the parallel
+     * search for the portal blocks. It must be called on the main thread.
+     *
+     * @param world (World) the arena world
+     * @param area (GameArea) the Game-Area which should be searched
+     * @return the future portal block locations; it completes on a worker thread
+     */
+    public static CompletableFuture<List<Location>> scan(World world, GameArea area) {
+
+        long startTime = System.currentTimeMillis();
+
+        int minX = area.getMinX();
+        int minY = Math.max(area.getMinY(), world.getMinHeight());
+        int minZ = area.getMinZ();
+
+        int maxX = area.getMaxX();
+        int maxY = Math.min(area.getMaxY(), world.getMaxHeight() - 1);
+        int maxZ = area.getMaxZ();
+
+        List<ChunkSnapshot> snapshots = new ArrayList<>();
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                snapshots.add(world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false));
+            }
+        }
+
+        long snapshotTime = System.currentTimeMillis();
+        Logger.DEBUG.log("[Portal Position-Cache] Time reached for " + snapshots.size() + " Chunk-Snapshots: "
+                + (snapshotTime - startTime) + " ms.");
+
+        List<CompletableFuture<List<Location>>> tasks = new ArrayList<>();
+        for (ChunkSnapshot snapshot : snapshots) {
+            for (int section = minY >> 4; section <= maxY >> 4; section++) {
+
+                int sectionMinY = Math.max(minY, section << 4);
+                int sectionMaxY = Math.min(maxY, (section << 4) + 15);
+
+                tasks.add(CompletableFuture.supplyAsync(() -> scanSection(world, snapshot,
+                        minX, sectionMinY, minZ, maxX, sectionMaxY, maxZ), EXECUTOR));
+            }
+        }
+
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<Location> portalBlocks = new ArrayList<>();
+            tasks.forEach(task -> portalBlocks.addAll(task.join()));
+
+            Logger.DEBUG.log("[Portal Position-Cache] Time reached for Portal-Counting: "
+                    + (System.currentTimeMillis() - snapshotTime) + " ms (" + tasks.size() + " chunk sections).");
+            return portalBlocks;
+        });
+    }
+
+    /**
+     * This method searches one chunk section of the snapshot. Only the part inside the
+     * given block boundaries is checked.
+     */
+    private static List<Location> scanSection(World world, ChunkSnapshot snapshot, int minX, int minY, int minZ,
+                                              int maxX, int maxY, int maxZ) {
+
+        int chunkMinX = snapshot.getX() << 4;
+        int chunkMinZ = snapshot.getZ() << 4;
+
+        int startX = Math.max(minX, chunkMinX) - chunkMinX;
+        int endX = Math.min(maxX, chunkMinX + 15) - chunkMinX;
+        int startZ = Math.max(minZ, chunkMinZ) - chunkMinZ;
+        int endZ = Math.min(maxZ, chunkMinZ + 15) - chunkMinZ;
+
+        List<Location> portalBlocks = new ArrayList<>();
+
+        for (int x = startX; x <= endX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = startZ; z <= endZ; z++) {
+
+                    if (snapshot.getBlockType(x, y, z) == Material.NETHER_PORTAL)
+                        portalBlocks.add(new Location(world, chunkMinX + x, y, chunkMinZ + z));
+                }
+            }
+        }
+
+        return portalBlocks;
+    }
+
+    /**
+     * This method stops the worker pool. Running scans are cancelled.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+}
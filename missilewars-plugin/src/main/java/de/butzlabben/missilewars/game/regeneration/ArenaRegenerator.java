@@ -0,0 +1,139 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.game.regeneration;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.configuration.Config;
+import de.butzlabben.missilewars.util.geometry.GameArea;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This class manages the arena worlds that are kept loaded between the rounds and
+ * restored in place (see {@link RegenerableArena}).
+ * <p>
+ * When a round ends, the arena is handed back here and its restore is started. The next
+ * game that uses the same arena template takes the world again, even if the restore is
+ * still running. The game must not start before the restore is finished.
+ */
+public class ArenaRegenerator {
+
+    @Getter
+    private static final ArenaRegenerator instance = new ArenaRegenerator();
+
+    private final Map<UUID, RegenerableArena> arenas = new HashMap<>();
+    private final Map<String, RegenerableArena> idleArenas = new HashMap<>();
+
+    /**
+     * This method starts the tracking of a freshly loaded arena world.
+     *
+     * @param world (World) the arena world, loaded from the template
+     * @param templateName (String) the name of the arena template
+     * @param gameArea (GameArea) the game area of the arena
+     * @return (RegenerableArena) the tracked arena
+     */
+    public RegenerableArena register(World world, String templateName, GameArea gameArea) {
+        RegenerableArena arena = new RegenerableArena(world, templateName);
+        arena.captureSnapshot(gameArea);
+        arenas.put(world.getUID(), arena);
+        return arena;
+    }
+
+    /**
+     * This method takes the kept arena world of the template, if there is one.
+     *
+     * @param templateName (String) the name of the arena template
+     * @return (RegenerableArena) the arena or 'null'
+     */
+    public RegenerableArena take(String templateName) {
+        return idleArenas.remove(templateName);
+    }
+
+    /**
+     * This method hands an arena back after a round and starts its restore. An arena with
+     * modifications outside of its snapshot can't be restored. It is no longer tracked
+     * then and must be unloaded and deleted by the caller.
+     *
+     * @param arena (RegenerableArena) the arena of the ended round
+     * @return true, if the arena is restored and kept for the next round
+     */
+    public boolean release(RegenerableArena arena) {
+        if (arena.isOutsideOfSnapshot()) {
+            Logger.DEBUG.log("[Arena-Regeneration] \"" + arena.getWorld().getName() + "\" was modified outside of its snapshot. "
+                    + "Reloading it from the template.");
+            arenas.remove(arena.getWorld().getUID());
+            return false;
+        }
+
+        // Only one world per template is kept. Further worlds are discarded.
+        if (idleArenas.containsKey(arena.getTemplateName())) {
+            arenas.remove(arena.getWorld().getUID());
+            return false;
+        }
+
+        arena.restore(Config.getRegenerationBlocksPerTick());
+        idleArenas.put(arena.getTemplateName(), arena);
+        return true;
+    }
+
+    /**
+     * This method checks whether a world of the template is restored in place. The next
+     * game of the template takes this world then and doesn't need a fresh copy.
+     *
+     * @param templateName (String) the name of the arena template
+     * @return true, if a world of the template is kept or in use
+     */
+    public boolean isRegenerated(String templateName) {
+        if (idleArenas.containsKey(templateName)) return true;
+
+        for (RegenerableArena arena : arenas.values()) {
+            if (arena.getTemplateName().equals(templateName)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method returns the tracked arena of the world.
+     *
+     * @param world (World) the target world
+     * @return (RegenerableArena) the arena or 'null', if the world isn't tracked
+     */
+    public RegenerableArena getArena(World world) {
+        if (arenas.isEmpty()) return null;
+        return arenas.get(world.getUID());
+    }
+
+    /**
+     * This method unloads the kept arena worlds that no game uses at the moment. The world
+     * folders are removed together with the other temporary worlds.
+     */
+    public void shutdown() {
+        for (RegenerableArena arena : idleArenas.values()) {
+            Bukkit.unloadWorld(arena.getWorld(), false);
+        }
+
+        idleArenas.clear();
+        arenas.clear();
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.game.regeneration;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.MissileWars;
+import de.butzlabben.missilewars.util.LongHashSet;
+import de.butzlabben.missilewars.util.geometry.GameArea;
+import de.butzlabben.missilewars.util.geometry.PackedPosition;
+import lombok.Getter;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.ExperienceOrb;
+import org.bukkit.entity.FallingBlock;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Projectile;
+import org.bukkit.entity.TNTPrimed;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.util.BoundingBox;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class is an arena world that is kept loaded between the rounds. All chunk sections
+ * (16x16x16 blocks) that are modified during a round are recorded. At the end of the
+ * round, only these sections are restored from a snapshot of the fresh template world.
+ * <p>
+ * The snapshot is taken from the chunks of the game area (plus one chunk as margin) when
+ * the world is loaded for the first time. Modifications outside of it can't be restored,
+ * the world is reloaded from the template then.
+ */
+public class RegenerableArena {
+
+    private static final int SECTION_VOLUME = 16 * 16 * 16;
+
+    @Getter private final World world;
+    @Getter private final String templateName;
+    private final Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+    private final LongHashSet dirtySections = new LongHashSet();
+    @Getter private boolean outsideOfSnapshot = false;
+    private int minChunkX, minChunkZ, maxChunkX, maxChunkZ;
+    private CompletableFuture<Void> restore = CompletableFuture.completedFuture(null);
+
+    RegenerableArena(World world, String templateName) {
+        this.world = world;
+        this.templateName = templateName;
+    }
+
+    /**
+     * This method takes the snapshot of the chunks of the game area. The chunks are
+     * loaded for this, if necessary.
+     *
+     * @param gameArea (GameArea) the game area of the arena
+     */
+    void captureSnapshot(GameArea gameArea) {
+        long startTime = System.currentTimeMillis();
+        minChunkX = (gameArea.getMinX() >> 4) - 1;
+        minChunkZ = (gameArea.getMinZ() >> 4) - 1;
+        maxChunkX = (gameArea.getMaxX() >> 4) + 1;
+        maxChunkZ = (gameArea.getMaxZ() >> 4) + 1;
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+                snapshots.put(chunk.getChunkKey(), chunk.getChunkSnapshot(false, false, false));
+            }
+        }
+
+        Logger.DEBUG.log("[Arena-Regeneration] Took the snapshot of " + snapshots.size() + " chunks of \"" + world.getName()
+                + "\" in " + (System.currentTimeMillis() - startTime) + " ms.");
+    }
+
+    /**
+     * This method records the chunk section of a block as modified.
+     *
+     * @param x (int) the block x coordinate
+     * @param y (int) the block y coordinate
+     * @param z (int) the block z coordinate
+     */
+    public void mark(int x, int y, int z) {
+        if (!dirtySections.add(PackedPosition.pack(x >> 4, y >> 4, z >> 4))) return;
+
+        if (!snapshots.containsKey(Chunk.getChunkKey(x >> 4, z >> 4))) outsideOfSnapshot = true;
+    }
+
+    /**
+     * This method checks whether the block is inside of the snapshot area.
+     *
+     * @param block (Block) the target block
+     * @return true, if the block can be restored
+     */
+    public boolean isInside(Block block) {
+        int chunkX = block.getX() >> 4;
+        int chunkZ = block.getZ() >> 4;
+        return (chunkX >= minChunkX) && (chunkX <= maxChunkX) && (chunkZ >= minChunkZ) && (chunkZ <= maxChunkZ);
+    }
+
+    public void mark(Block block) {
+        mark(block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * This method records all chunk sections inside the bounding box as modified.
+     *
+     * @param box (BoundingBox) the modified area, e.g. of a pasted schematic
+     */
+    public void mark(BoundingBox box) {
+        for (int sectionX = (int) Math.floor(box.getMinX()) >> 4; sectionX <= (int) Math.floor(box.getMaxX()) >> 4; sectionX++) {
+            for (int sectionY = (int) Math.floor(box.getMinY()) >> 4; sectionY <= (int) Math.floor(box.getMaxY()) >> 4; sectionY++) {
+                for (int sectionZ = (int) Math.floor(box.getMinZ()) >> 4; sectionZ <= (int) Math.floor(box.getMaxZ()) >> 4; sectionZ++) {
+                    mark(sectionX << 4, sectionY << 4, sectionZ << 4);
+                }
+            }
+        }
+    }
+
+    public boolean isRestoring() {
+        return !restore.isDone();
+    }
+
+    /**
+     * This method returns the running restore of the arena.
+     *
+     * @return (CompletableFuture) completes on the main thread when the arena is restored
+     */
+    public CompletableFuture<Void> whenRestored() {
+        return restore;
+    }
+
+    /**
+     * This method restores all modified chunk sections from the snapshot. Only the given
+     * amount of blocks is checked per tick. Sections which are modified during the restore
+     * are restored by a following call.
+     * <p>
+     * Only the block data is restored. The content of containers, signs etc. is not part
+     * of the snapshot.
+     *
+     * @param blocksPerTick (int) the block budget per tick
+     * @return (CompletableFuture) completes on the main thread when the arena is restored
+     */
+    CompletableFuture<Void> restore(int blocksPerTick) {
+        if (isRestoring()) {
+            restore = restore.thenCompose(ignored -> startRestore(blocksPerTick));
+        } else {
+            restore = startRestore(blocksPerTick);
+        }
+        return restore;
+    }
+
+    private CompletableFuture<Void> startRestore(int blocksPerTick) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        long[] sections = dirtySections.toArray();
+        dirtySections.clear();
+
+        for (Entity entity : world.getEntities()) {
+            if (isGameEntity(entity)) entity.remove();
+        }
+
+        long startTime = System.currentTimeMillis();
+        int minHeight = world.getMinHeight();
+        int maxHeight = world.getMaxHeight();
+        int budget = Math.max(SECTION_VOLUME, blocksPerTick);
+
+        new BukkitRunnable() {
+            private int sectionIndex = 0;
+            private int blockIndex = 0;
+            private int restoredBlocks = 0;
+
+            @Override
+            public void run() {
+                int remainingBudget = budget;
+
+                while ((sectionIndex < sections.length) && (remainingBudget > 0)) {
+                    long section = sections[sectionIndex];
+                    int chunkX = PackedPosition.getX(section);
+                    int chunkZ = PackedPosition.getZ(section);
+                    int minY = PackedPosition.getY(section) << 4;
+
+                    ChunkSnapshot snapshot = snapshots.get(Chunk.getChunkKey(chunkX, chunkZ));
+                    if (snapshot == null) {
+                        sectionIndex++;
+                        continue;
+                    }
+
+                    Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+                    while ((blockIndex < SECTION_VOLUME) && (remainingBudget > 0)) {
+                        int x = blockIndex & 15;
+                        int z = (blockIndex >> 4) & 15;
+                        int y = minY + (blockIndex >> 8);
+                        blockIndex++;
+                        remainingBudget--;
+
+                        if ((y < minHeight) || (y >= maxHeight)) continue;
+
+                        BlockData blockData = snapshot.getBlockData(x, y, z);
+                        Block block = chunk.getBlock(x, y, z);
+                        if (block.getBlockData().equals(blockData)) continue;
+
+                        block.setBlockData(blockData, false);
+                        restoredBlocks++;
+                    }
+
+                    if (blockIndex >= SECTION_VOLUME) {
+                        sectionIndex++;
+                        blockIndex = 0;
+                    }
+                }
+
+                if (sectionIndex < sections.length) return;
+
+                cancel();
+                Logger.DEBUG.log("[Arena-Regeneration] Restored " + restoredBlocks + " blocks in " + sections.length
+                        + " chunk sections of \"" + world.getName() + "\" in " + (System.currentTimeMillis() - startTime) + " ms.");
+                future.complete(null);
+            }
+        }.runTaskTimer(MissileWars.getInstance(), 1, 1);
+
+        return future;
+    }
+
+    /**
+     * This method checks whether the entity was spawned during the round. The entities of
+     * the template, e.g. armor stands or item frames, are not part of the snapshot and are
+     * kept therefore.
+     *
+     * @param entity (Entity) the target entity
+     * @return true, if the entity is removed by the restore
+     */
+    private static boolean isGameEntity(Entity entity) {
+        return (entity instanceof TNTPrimed) || (entity instanceof Projectile) || (entity instanceof Item)
+                || (entity instanceof FallingBlock) || (entity instanceof ExperienceOrb);
+    }
+}
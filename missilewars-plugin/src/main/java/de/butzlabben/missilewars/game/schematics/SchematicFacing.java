@@ -46,6 +46,25 @@ public enum SchematicFacing {
         this.secondary = secondary;
     }
 
+    /**
+     * This method returns the schematic rotation (in degree) that is used 
+     * for a paste in this direction.
+     *
+     * @return (int) the schematic rotation
+     */
+    public int getRotation() {
+        switch (this) {
+            case SOUTH:
+                return 180;
+            case EAST:
+                return 270;
+            case WEST:
+                return 90;
+            default:
+                return 0;
+        }
+    }
+
     public static SchematicFacing getFacing(double degree, MissileConfig configuration) {
         List<SchematicFacing> values = Arrays.stream(SchematicFacing.values()).filter(f -> configuration.getEnabledFacings().contains(f)).collect(Collectors.toList());
         SchematicFacing facing = null;
@@ -79,22 +79,20 @@ public class Missile extends SchematicObject {
             
             pastePos = pastePos.add(new Vector(0, -down, 0));
 
-            int rotation = 0;
+            int rotation = schematicFacing.getRotation();
             if (schematicFacing == SchematicFacing.NORTH) {
                 pastePos = pastePos.add(new Vector(0, 0, -dist));
             } else if (schematicFacing == SchematicFacing.SOUTH) {
                 pastePos = pastePos.add(new Vector(0, 0, dist));
-                rotation = 180;
             } else if (schematicFacing == SchematicFacing.EAST) {
                 pastePos = pastePos.add(new Vector(dist, 0, 0));
-                rotation = 270;
             } else if (schematicFacing == SchematicFacing.WEST) {
                 pastePos = pastePos.add(new Vector(-dist, 0, 0));
-                rotation = 90;
             }
             
             MissileWars.getInstance().getSchematicPaster().pasteMissile(getSchematic(), pastePos, rotation, loc.getWorld(), hasTempBlock, 
                     tempBlockMaterial, tempBlockDelay, tempBlockRadius);
+            game.trackPaste(getSchematic(), pastePos, rotation);
             
         } catch (Exception e) {
             Logger.ERROR.log("Could not load " + getDisplayName());
@@ -21,6 +21,7 @@ package de.butzlabben.missilewars.game.schematics.paste;
 import de.butzlabben.missilewars.MissileWars;
 import de.butzlabben.missilewars.missile.paste.v1_20.fawe.FAWE_Paster;
 import org.bukkit.Material;
+import org.bukkit.util.BoundingBox;
 import org.bukkit.util.Vector;
 
 import java.io.File;
@@ -44,4 +45,19 @@ public class FawePasteProvider implements Paster {
     public void pasteSchematic(File schematic, Vector locationVec, int rotation, org.bukkit.World world) {
         paster.pasteSchematic(schematic, locationVec, rotation, world, MissileWars.getInstance());
     }
+
+    @Override
+    public BoundingBox getPasteBounds(File schematic, Vector locationVec, int rotation) {
+        return paster.getPasteBounds(schematic, locationVec, rotation, MissileWars.getInstance());
+    }
+
+    @Override
+    public void loadSchematic(File schematic, int... rotations) {
+        paster.loadSchematic(schematic, rotations, MissileWars.getInstance());
+    }
+
+    @Override
+    public void clearSchematicCache() {
+        paster.clearSchematicCache();
+    }
 }
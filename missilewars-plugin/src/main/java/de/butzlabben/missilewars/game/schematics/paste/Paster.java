@@ -19,6 +19,7 @@
 package de.butzlabben.missilewars.game.schematics.paste;
 
 import org.bukkit.Material;
+import org.bukkit.util.BoundingBox;
 import org.bukkit.util.Vector;
 
 import java.io.File;
@@ -33,4 +34,28 @@ public interface Paster {
                       Material replaceMaterial, int replaceTicks, int replaceRadius);
 
     void pasteSchematic(File schematic, Vector locationVec, int rotation, org.bukkit.World world);
+
+    /**
+     * This method calculates the block area that a paste of the schematic would cover.
+     *
+     * @param schematic (File) the target WorldEdit schematic file
+     * @param locationVec (Vector) the paste location (= Schematic-Origin)
+     * @param rotation (int) the schematic rotation
+     * @return (BoundingBox) the covered area or 'null', if the schematic could not be read
+     */
+    BoundingBox getPasteBounds(File schematic, Vector locationVec, int rotation);
+
+    /**
+     * This method prepares the parsed schematic for all given rotations, so that 
+     * the following pastes don't need to read the schematic file again.
+     *
+     * @param schematic (File) the target WorldEdit schematic file
+     * @param rotations (int) the schematic rotations which should be prepared
+     */
+    void loadSchematic(File schematic, int... rotations);
+
+    /**
+     * This method removes all prepared schematics.
+     */
+    void clearSchematicCache();
 }
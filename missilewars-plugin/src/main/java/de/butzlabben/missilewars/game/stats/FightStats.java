@@ -22,37 +22,66 @@ import de.butzlabben.missilewars.configuration.Config;
 import de.butzlabben.missilewars.game.Game;
 import de.butzlabben.missilewars.game.enums.GameResult;
 import de.butzlabben.missilewars.player.MWPlayer;
-import de.butzlabben.missilewars.util.ConnectionHolder;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Collection;
-import lombok.RequiredArgsConstructor;
-
-@RequiredArgsConstructor
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import lombok.Getter;
+
+/**
+ * This class is an immutable record of a finished fight. It's captured on the main thread
+ * when the game stops and written to the database by the {@link FightStatsWriter}.
+ * <p>
+ * Each fight gets a unique id when it's captured. A write can be retried after its commit
+ * was already applied (e.g. if the connection was lost before the acknowledgement), so
+ * the id is saved with the fight and a fight with a known id is not inserted again.
+ */
+@Getter
 public class FightStats {
 
+    private static final int LOCK_TIMEOUT = 10;
+
+    private final UUID fightId;
     private final String arenaName;
     private final long timeStart, timeElapsed;
     private final int teamWon;
-    private final Collection<MWPlayer> players;
-    private Game game;
+    private final List<Member> members;
 
     public FightStats(Game game) {
-        this.game = game;
-
+        fightId = UUID.randomUUID();
         arenaName = game.getArenaConfig().getName();
         timeStart = game.getTimestart();
         timeElapsed = System.currentTimeMillis() - timeStart;
-        teamWon = getGameResultCode();
-        players = game.getPlayers().values();
+        teamWon = getGameResultCode(game);
+
+        List<Member> members = new ArrayList<>();
+        for (MWPlayer mwPlayer : game.getPlayers().values()) {
+            if (mwPlayer.getTeam() == null) continue;
+
+            int team = (mwPlayer.getTeam() == game.getTeamManager().getTeam1()) ? 1 : 2;
+            members.add(new Member(mwPlayer.getUuid(), team));
+        }
+        this.members = Collections.unmodifiableList(members);
     }
 
+    FightStats(String arenaName, long timeStart, long timeElapsed, int teamWon, List<Member> members) {
+        this.fightId = null;
+        this.arenaName = arenaName;
+        this.timeStart = timeStart;
+        this.timeElapsed = timeElapsed;
+        this.teamWon = teamWon;
+        this.members = Collections.unmodifiableList(members);
+    }
 
     /**
      * This method returns the game result code for the database.
      */
-    private int getGameResultCode() {
+    private static int getGameResultCode(Game game) {
 
         if (game.getTeamManager().getTeam1().getGameResult() == GameResult.WIN) {
             return 1;
@@ -63,62 +92,92 @@ public class FightStats {
         return 0;
     }
 
-    public static void checkTables() {
-        if (!Config.isFightStatsEnabled())
-            return;
-        try {
-            PreparedStatement ps = ConnectionHolder.prepareStatement(
-                    "CREATE TABLE IF NOT EXISTS " + Config.getFightsTable() + "(id int NOT NULL AUTO_INCREMENT PRIMARY KEY, arena TEXT NOT NULL, " +
-                            "timestart bigint(20), timeelapsed bigint(20), teamwon int UNSIGNED)");
-            ConnectionHolder.executeUpdate(ps);
-
-            ps = ConnectionHolder.prepareStatement(
-                    "CREATE TABLE IF NOT EXISTS " + Config.getFightMembersTable() +
-                            " (fid int, player varchar(36), team tinyint(4), PRIMARY KEY (player, fid))");
-
-            ConnectionHolder.executeUpdate(ps);
+    /**
+     * This method inserts the fight and all its members in one transaction. The members
+     * are inserted with a single multi-row statement. The rollup tables are updated in
+     * the same transaction. The write lock is held meanwhile, so no other server rebuilds
+     * the rollups at the same time. The auto-commit mode of the
+     * connection is reset when it's handed back to the pool.
+     *
+     * @param connection (Connection) the connection to use
+     * @return true, if the fight was inserted; false, if it was already saved before
+     * @throws SQLException if the fight could not be inserted; nothing is saved then
+     */
+    boolean insert(Connection connection) throws SQLException {
+        try (StatsLock ignored = StatsLock.acquire(connection, StatsLock.WRITE, LOCK_TIMEOUT)) {
+            // All inserts hold the write lock, so no other server can save the fight between
+            // the check and the insert. The unique index on the id guards this in addition.
+            if ((fightId != null) && isSaved(connection)) return false;
+
+            insertFight(connection);
+            return true;
+        }
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+    private boolean isSaved(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT 1 FROM " + Config.getFightsTable() + " WHERE fight_uuid = ?")) {
+            ps.setString(1, fightId.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
         }
     }
 
-    public void insert() {
-        if (!Config.isFightStatsEnabled())
-            return;
+    private void insertFight(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
         try {
-            PreparedStatement ps = ConnectionHolder.prepareStatement("INSERT INTO " + Config.getFightsTable() + " (arena, timestart, timeelapsed, teamwon) VALUES "
-                    + " (?, ?, ?, ?)");
-            ps.setString(1, arenaName);
-            ps.setLong(2, timeStart);
-            ps.setLong(3, timeElapsed);
-            ps.setInt(4, teamWon);
-
-            ConnectionHolder.executeUpdate(ps);
-            ResultSet rs = ps.getGeneratedKeys();
             int fightID = -1;
-            if (rs.next())
-                fightID = rs.getInt(1);
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + Config.getFightsTable() + " (fight_uuid, arena, timestart, timeelapsed, teamwon) VALUES "
+                    + " (?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                // Fights of an older journal have no id.
+                ps.setString(1, (fightId == null) ? null : fightId.toString());
+                ps.setString(2, arenaName);
+                ps.setLong(3, timeStart);
+                ps.setLong(4, timeElapsed);
+                ps.setInt(5, teamWon);
+
+                ps.executeUpdate();
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    if (rs.next())
+                        fightID = rs.getInt(1);
+                }
+            }
 
             if (fightID == -1)
-                return;
-            for (MWPlayer mwPlayer : players) {
-                if (mwPlayer.getTeam() != null) {
-                    PreparedStatement statement = ConnectionHolder.prepareStatement("INSERT INTO " + Config.getFightMembersTable() + " (fid, player, team) VALUES "
-                            + " (?, ?, ?)");
-                    statement.setInt(1, fightID);
-                    statement.setString(2, mwPlayer.getUuid().toString());
-
-                    if (mwPlayer.getTeam() == game.getTeamManager().getTeam1())
-                        statement.setInt(3, 1);
-                    else
-                        statement.setInt(3, 2);
-
-                    ConnectionHolder.executeUpdate(statement);
+                throw new SQLException("The database returned no id for the inserted fight");
+
+            if (!members.isEmpty()) {
+                StringBuilder statement = new StringBuilder("INSERT INTO " + Config.getFightMembersTable() + " (fid, player, team) VALUES ");
+                for (int i = 0; i < members.size(); i++) {
+                    statement.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
                 }
+
+                try (PreparedStatement ps = connection.prepareStatement(statement.toString())) {
+                    int index = 1;
+                    for (Member member : members) {
+                        ps.setInt(index++, fightID);
+                        ps.setString(index++, member.player().toString());
+                        ps.setInt(index++, member.team());
+                    }
+                    ps.executeUpdate();
+                }
+            }
+
+            StatsRollup rollup = new StatsRollup();
+            rollup.add(this);
+            rollup.flush(connection);
+
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackException) {
+                e.addSuppressed(rollbackException);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            throw e;
         }
     }
+
+    public record Member(UUID player, int team) {
+    }
 }
@@ -0,0 +1,427 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.game.stats;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.MissileWars;
+import de.butzlabben.missilewars.configuration.Config;
+import de.butzlabben.missilewars.util.database.ConnectionPool;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+
+/**
+ * This class writes the fight statistics to the database in the background.
+ * <p>
+ * The fights are queued on the main thread and written by a single thread. If the queue
+ * is full or the database is unreachable, the fights are appended to a journal file in
+ * the plugin folder instead. The journal is replayed as soon as the database can be
+ * reached again, also after a restart. The order of the fights is kept: while the
+ * journal isn't empty, new fights are appended to it as well.
+ * <p>
+ * A fight that is rejected by the database itself (e.g. because of a constraint or a
+ * too long value) would fail again on every retry. It is moved to a separate file
+ * instead, so it doesn't block the journal.
+ */
+public class FightStatsWriter {
+
+    @Getter
+    private static final FightStatsWriter instance = new FightStatsWriter();
+
+    private static final String JOURNAL_FILE = "pending-fightstats.jsonl";
+    private static final String DEAD_LETTER_FILE = "failed-fightstats.jsonl";
+    private static final int MAX_QUEUE_SIZE = 128;
+    private static final long RETRY_DELAY = TimeUnit.SECONDS.toMillis(30);
+    private static final int REBUILD_LOCK_TIMEOUT = 60;
+    private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+    private final Gson gson = new Gson();
+    private final BlockingQueue<FightStats> queue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final Object journalLock = new Object();
+    private volatile boolean running = false;
+    private Thread thread;
+    private long nextReplay = 0;
+    private boolean schemaReady = false;
+    private long nextMigration = 0;
+    private long nextDirectoryFlush = 0;
+
+    /**
+     * This method starts the writer thread, if it isn't running yet. The statistics tables
+     * are updated first (see {@link StatsSchema}), then the fights of the journal are
+     * replayed.
+     */
+    public synchronized void start() {
+        if (running) return;
+
+        running = true;
+        thread = new Thread(this::run, "MissileWars Stats-Writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * This method queues a finished fight for the database.
+     *
+     * @param stats (FightStats) the fight
+     */
+    public void submit(FightStats stats) {
+        if (!Config.isFightStatsEnabled()) return;
+
+        start();
+        if (queue.offer(stats)) return;
+
+        Logger.DEBUG.log("[Stats-Writer] The queue is full. Saving the fight in the journal.");
+        appendToJournal(List.of(stats));
+    }
+
+    /**
+     * This method rebuilds the rollup tables from the raw fight tables. It runs on the
+     * writer thread and holds the write lock, so no fight is inserted at the same time,
+     * also not by other servers sharing the database. Their fights are journaled meanwhile.
+     *
+     * @param callback (IntConsumer) receives the amount of processed fights on the main
+     *                 thread, or -1 if the rebuild failed
+     */
+    public void rebuildRollups(IntConsumer callback) {
+        start();
+        tasks.add(() -> {
+            long startTime = System.currentTimeMillis();
+            int fights;
+
+            try (Connection connection = ConnectionPool.getInstance().getConnection()) {
+                try (StatsLock ignored = StatsLock.acquire(connection, StatsLock.WRITE, REBUILD_LOCK_TIMEOUT)) {
+                    fights = StatsRollup.rebuild(connection);
+                }
+                StatsCache.getInstance().invalidate();
+                Logger.DEBUG.log("[Stats-Writer] Rebuilt the rollups of " + fights + " fights in "
+                        + (System.currentTimeMillis() - startTime) + " ms.");
+            } catch (SQLException e) {
+                Logger.ERROR.log("Could not rebuild the statistics rollups.");
+                e.printStackTrace();
+                fights = -1;
+            }
+
+            int result = fights;
+            Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> callback.accept(result));
+        });
+    }
+
+    private void run() {
+        while (running) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+
+            FightStats stats;
+            try {
+                stats = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            if (!schemaReady) {
+                if (System.currentTimeMillis() >= nextMigration) migrateSchema();
+
+                if (!schemaReady) {
+                    if (stats != null) appendToJournal(List.of(stats));
+                    continue;
+                }
+            }
+
+            if (PlayerDirectory.getInstance().hasPending() && (System.currentTimeMillis() >= nextDirectoryFlush)) {
+                flushDirectory();
+            }
+
+            if (hasJournal()) {
+                if (System.currentTimeMillis() >= nextReplay) replayJournal();
+
+                // Keep the order of the fights behind the journal.
+                if (hasJournal()) {
+                    if (stats != null) appendToJournal(List.of(stats));
+                    continue;
+                }
+            }
+
+            if (stats == null) continue;
+
+            try {
+                write(stats);
+            } catch (SQLException e) {
+                if (!isTransient(e)) {
+                    moveToDeadLetter(gson.toJson(stats), e);
+                    continue;
+                }
+
+                Logger.WARN.log("Could not save the fight statistics (" + e.getMessage() + "). "
+                        + "The fight is saved in the journal and retried later.");
+                appendToJournal(List.of(stats));
+                nextReplay = System.currentTimeMillis() + RETRY_DELAY;
+            }
+        }
+
+        // Saves the players who joined shortly before the shutdown.
+        if (schemaReady && PlayerDirectory.getInstance().hasPending()) flushDirectory();
+    }
+
+    private void flushDirectory() {
+        try (Connection connection = ConnectionPool.getInstance().getConnection()) {
+            int players = PlayerDirectory.getInstance().flush(connection);
+            Logger.DEBUG.log("[Stats-Writer] Saved the names of " + players + " player(s).");
+        } catch (SQLException e) {
+            Logger.WARN.log("Could not save the player names (" + e.getMessage() + "). Retrying in "
+                    + TimeUnit.MILLISECONDS.toSeconds(RETRY_DELAY) + " seconds.");
+            nextDirectoryFlush = System.currentTimeMillis() + RETRY_DELAY;
+        }
+    }
+
+    private void migrateSchema() {
+        try (Connection connection = ConnectionPool.getInstance().getConnection()) {
+            StatsSchema.migrate(connection);
+            schemaReady = true;
+        } catch (SQLException e) {
+            Logger.WARN.log("Could not update the statistics tables (" + e.getMessage() + "). Retrying in "
+                    + TimeUnit.MILLISECONDS.toSeconds(RETRY_DELAY) + " seconds.");
+            nextMigration = System.currentTimeMillis() + RETRY_DELAY;
+        }
+    }
+
+    private void write(FightStats stats) throws SQLException {
+        long startTime = System.currentTimeMillis();
+
+        try (Connection connection = ConnectionPool.getInstance().getConnection()) {
+            if (!stats.insert(connection)) {
+                Logger.DEBUG.log("[Stats-Writer] The fight " + stats.getFightId() + " was already saved. Skipping it.");
+                return;
+            }
+        }
+        StatsCache.getInstance().invalidate();
+
+        Logger.DEBUG.log("[Stats-Writer] Saved the fight in \"" + stats.getArenaName() + "\" with "
+                + stats.getMembers().size() + " members in " + (System.currentTimeMillis() - startTime) + " ms.");
+    }
+
+    private void replayJournal() {
+        List<String> pending = readJournal();
+        if (pending.isEmpty()) {
+            deleteJournal();
+            return;
+        }
+
+        int replayed = 0;
+        int written = 0;
+        try {
+            for (String line : pending) {
+                FightStats stats;
+                try {
+                    stats = gson.fromJson(line, FightStats.class);
+                } catch (JsonParseException e) {
+                    stats = null;
+                }
+
+                if (stats == null) {
+                    Logger.WARN.log("Skipping a damaged entry of the statistics journal.");
+                } else {
+                    try {
+                        write(stats);
+                        written++;
+                    } catch (SQLException e) {
+                        if (isTransient(e)) throw e;
+                        moveToDeadLetter(line, e);
+                    }
+                }
+                replayed++;
+            }
+        } catch (SQLException e) {
+            Logger.DEBUG.log("[Stats-Writer] The database is still unreachable (" + e.getMessage() + ").");
+            nextReplay = System.currentTimeMillis() + RETRY_DELAY;
+        }
+
+        if (written > 0) {
+            Logger.NORMAL.log("Saved " + written + " fight(s) from the statistics journal.");
+        }
+        removeFromJournal(replayed);
+    }
+
+    /**
+     * This method checks whether a failed write can succeed later. Connection problems,
+     * timeouts and deadlocks are transient. An error without a SQL state can't be
+     * classified and is treated as transient as well, so no fight is discarded during
+     * an outage.
+     *
+     * @param exception (SQLException) the error of the write
+     * @return true, if the fight should be retried
+     */
+    private static boolean isTransient(SQLException exception) {
+        if ((exception instanceof SQLTransientException) || (exception instanceof SQLRecoverableException)) return true;
+
+        String state = exception.getSQLState();
+        // 08: connection exception, 40: transaction rollback (e.g. a deadlock)
+        return (state == null) || state.startsWith("08") || state.startsWith("40");
+    }
+
+    /**
+     * This method saves a fight that was rejected by the database in the dead letter file.
+     * The fights of this file are not retried; they can be checked and imported manually.
+     *
+     * @param line (String) the fight in the journal format
+     * @param exception (SQLException) the error of the database
+     */
+    private void moveToDeadLetter(String line, SQLException exception) {
+        File file = new File(MissileWars.getInstance().getDataFolder(), DEAD_LETTER_FILE);
+        file.getParentFile().mkdirs();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(line);
+            writer.newLine();
+        } catch (IOException e) {
+            Logger.ERROR.log("Could not save a rejected fight in \"" + DEAD_LETTER_FILE + "\". It is lost.");
+            e.printStackTrace();
+            return;
+        }
+
+        Logger.ERROR.log("The database rejected the fight statistics (" + exception.getMessage() + "). "
+                + "The fight is saved in \"" + DEAD_LETTER_FILE + "\" and not retried.");
+    }
+
+    private File getJournalFile() {
+        return new File(MissileWars.getInstance().getDataFolder(), JOURNAL_FILE);
+    }
+
+    private boolean hasJournal() {
+        return getJournalFile().isFile();
+    }
+
+    private void appendToJournal(List<FightStats> fights) {
+        synchronized (journalLock) {
+            File journal = getJournalFile();
+            journal.getParentFile().mkdirs();
+
+            try (BufferedWriter writer = Files.newBufferedWriter(journal.toPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (FightStats stats : fights) {
+                    writer.write(gson.toJson(stats));
+                    writer.newLine();
+                }
+            } catch (IOException e) {
+                Logger.ERROR.log("Could not save " + fights.size() + " fight(s) in the statistics journal. They are lost.");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private List<String> readJournal() {
+        synchronized (journalLock) {
+            File journal = getJournalFile();
+            if (!journal.isFile()) return List.of();
+
+            try {
+                List<String> lines = Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8);
+                lines.removeIf(String::isBlank);
+                return lines;
+            } catch (IOException e) {
+                Logger.WARN.log("Could not read the statistics journal.");
+                e.printStackTrace();
+                return List.of();
+            }
+        }
+    }
+
+    /**
+     * This method removes the given amount of replayed fights from the start of the
+     * journal. Fights which were appended during the replay are kept.
+     */
+    private void removeFromJournal(int amount) {
+        if (amount == 0) return;
+
+        synchronized (journalLock) {
+            File journal = getJournalFile();
+
+            try {
+                List<String> lines = readJournal();
+                List<String> remaining = lines.subList(Math.min(amount, lines.size()), lines.size());
+                if (remaining.isEmpty()) {
+                    Files.deleteIfExists(journal.toPath());
+                    return;
+                }
+
+                File tempFile = new File(journal.getParentFile(), JOURNAL_FILE + ".tmp");
+                Files.write(tempFile.toPath(), remaining, StandardCharsets.UTF_8);
+                Files.move(tempFile.toPath(), journal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Logger.WARN.log("Could not update the statistics journal.");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void deleteJournal() {
+        synchronized (journalLock) {
+            try {
+                Files.deleteIfExists(getJournalFile().toPath());
+            } catch (IOException e) {
+                Logger.WARN.log("Could not delete the statistics journal.");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * This method stops the writer thread. A fight that is written at the moment is
+     * finished first, the remaining queued fights are saved in the journal.
+     */
+    public synchronized void shutdown() {
+        if (!running) return;
+
+        running = false;
+        try {
+            thread.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<FightStats> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            Logger.NORMAL.log("Saving " + remaining.size() + " fight(s) in the statistics journal.");
+            appendToJournal(remaining);
+        }
+    }
+}
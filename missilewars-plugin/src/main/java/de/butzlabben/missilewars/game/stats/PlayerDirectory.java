@@ -0,0 +1,133 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.game.stats;
+
+import com.destroystokyo.paper.profile.ProfileProperty;
+import de.butzlabben.missilewars.configuration.Config;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import org.bukkit.entity.Player;
+
+/**
+ * This class records the last known name and skin texture of the players in the
+ * statistics database. Every counted player has joined the server at some point, so the
+ * statistics queries can return the names directly instead of resolving them remotely.
+ * <p>
+ * The players are recorded on the main thread when they join or finish a fight. The
+ * records are saved in batches by the stats writer thread (see {@link FightStatsWriter}).
+ * Several records of the same player are merged; only the latest one is saved.
+ */
+public class PlayerDirectory {
+
+    @Getter
+    private static final PlayerDirectory instance = new PlayerDirectory();
+
+    private final Map<UUID, Entry> pending = new ConcurrentHashMap<>();
+
+    /**
+     * This method records the current name and skin of the player.
+     *
+     * @param player (Player) the player
+     */
+    public void record(Player player) {
+        if (!Config.isFightStatsEnabled()) return;
+
+        String texture = null;
+        String signature = null;
+        for (ProfileProperty property : player.getPlayerProfile().getProperties()) {
+            if (!property.getName().equals("textures")) continue;
+
+            texture = property.getValue();
+            signature = property.getSignature();
+        }
+
+        pending.put(player.getUniqueId(), new Entry(player.getUniqueId(), player.getName(), texture, signature, System.currentTimeMillis()));
+    }
+
+    /**
+     * This method records a name and skin that were resolved remotely for a player who is
+     * not in the directory yet. A record of the player from the server is always preferred.
+     *
+     * @param uuid (UUID) the player
+     * @param name (String) the resolved name
+     * @param texture (ProfileProperty) the resolved 'textures' property or 'null'
+     */
+    public void record(UUID uuid, String name, ProfileProperty texture) {
+        if (!Config.isFightStatsEnabled()) return;
+
+        String value = (texture == null) ? null : texture.getValue();
+        String signature = (texture == null) ? null : texture.getSignature();
+        pending.putIfAbsent(uuid, new Entry(uuid, name, value, signature, 0));
+    }
+
+    boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    static void createTable(Statement statement) throws SQLException {
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + Config.getPlayersTable() +
+                " (player varchar(36) NOT NULL PRIMARY KEY, name varchar(16) NOT NULL, texture TEXT NULL, " +
+                "texture_signature TEXT NULL, last_seen bigint NOT NULL)");
+    }
+
+    /**
+     * This method saves the recorded players. The records stay pending if saving failed.
+     *
+     * @param connection (Connection) the connection to use
+     * @return (int) the amount of saved players
+     */
+    int flush(Connection connection) throws SQLException {
+        List<Entry> entries = new ArrayList<>(pending.values());
+        if (entries.isEmpty()) return 0;
+
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + Config.getPlayersTable() +
+                " (player, name, texture, texture_signature, last_seen) VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                "name = IF(VALUES(last_seen) >= last_seen, VALUES(name), name), texture = COALESCE(VALUES(texture), texture), " +
+                "texture_signature = IF(VALUES(texture) IS NULL, texture_signature, VALUES(texture_signature)), " +
+                "last_seen = GREATEST(last_seen, VALUES(last_seen))")) {
+            for (Entry entry : entries) {
+                ps.setString(1, entry.uuid().toString());
+                ps.setString(2, entry.name());
+                ps.setString(3, entry.texture());
+                ps.setString(4, entry.signature());
+                ps.setLong(5, entry.time());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        // Newer records of the same players which were added meanwhile are kept.
+        for (Entry entry : entries) {
+            pending.remove(entry.uuid(), entry);
+        }
+        return entries.size();
+    }
+
+    private record Entry(UUID uuid, String name, String texture, String signature, long time) {
+    }
+}
@@ -35,6 +35,9 @@ public class PlayerStats implements Comparable<PlayerStats> {
     private final int team1, team2;
     @Setter
     private String name;
+    // The skin of the player from the player directory, if known.
+    @Setter
+    private String texture, textureSignature;
 
     public double getWinToLoseRatio() {
         double loses = this.loses == 0 ? 1 : this.loses;
@@ -29,5 +29,11 @@ public class SavedStats {
     private final String arena;
     private final double playerCount;
     private final double teamWon;
+    private int id = -1;
+
+    public SavedStats(int id, long timeElapsed, long timeStart, String arena, double playerCount, double teamWon) {
+        this(timeElapsed, timeStart, arena, playerCount, teamWon);
+        this.id = id;
+    }
 
 }
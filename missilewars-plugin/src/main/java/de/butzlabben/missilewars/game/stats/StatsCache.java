@@ -0,0 +1,120 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.game.stats;
+
+import de.butzlabben.missilewars.configuration.Config;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.Getter;
+
+/**
+ * This class caches the results of the statistics queries for a short time, so opening
+ * the stats menus several times doesn't repeat all queries.
+ * <p>
+ * The results are keyed by the query kind, the start date and the arena of the fetcher.
+ * They expire after the configured time and are dropped whenever a new fight is saved.
+ * The cache holds a limited amount of results; the least recently used ones are removed
+ * first. The queries run outside of the cache lock.
+ */
+public class StatsCache {
+
+    @Getter
+    private static final StatsCache instance = new StatsCache();
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > Config.getStatsCacheMaxEntries();
+        }
+    };
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long generation = 0;
+
+    /**
+     * This method returns the cached result of the query or runs the query on a miss.
+     * A result of 'null' (e.g. a failed query) is not cached.
+     *
+     * @param key (Key) the query
+     * @param loader (Supplier) runs the query
+     * @return the result of the query
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(Key key, Supplier<T> loader) {
+        long ttl = TimeUnit.SECONDS.toMillis(Config.getStatsCacheTtl());
+        if (ttl <= 0) return loader.get();
+
+        long loadedGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if ((entry != null) && (entry.expiresAt() > System.currentTimeMillis())) {
+                hits.increment();
+                return (T) entry.value();
+            }
+            loadedGeneration = generation;
+        }
+
+        misses.increment();
+        T value = loader.get();
+        if (value == null) return null;
+
+        synchronized (this) {
+            // A fight was saved while the query was running. The result could be outdated.
+            if (loadedGeneration == generation) {
+                entries.put(key, new Entry(value, System.currentTimeMillis() + ttl));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * This method drops all cached results. It's called when a new fight was saved.
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+        generation++;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "Entries: " + size() + " | Hits: " + getHits() + " | Misses: " + getMisses();
+    }
+
+    record Key(String kind, long from, String arena) {
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+}
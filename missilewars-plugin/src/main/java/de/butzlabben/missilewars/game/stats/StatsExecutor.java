@@ -0,0 +1,114 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.game.stats;
+
+import de.butzlabben.missilewars.configuration.Config;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.Getter;
+
+/**
+ * This class runs the statistics queries of the commands and menus in the background,
+ * so the main thread never waits for the database.
+ * <p>
+ * Each requester can only have one query running at the same time. Repeating a command
+ * while its data is still loading doesn't queue the same queries again.
+ */
+public class StatsExecutor {
+
+    @Getter
+    private static final StatsExecutor instance = new StatsExecutor();
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final Map<UUID, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    /**
+     * This method runs a query in the background.
+     *
+     * @param query (Supplier) the query
+     * @return (CompletableFuture) completes with the result on the query thread
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> query) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        try {
+            getExecutor().execute(() -> {
+                try {
+                    future.complete(query.get());
+                } catch (Throwable throwable) {
+                    future.completeExceptionally(throwable);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * This method runs a query of a requester in the background, if the requester has
+     * no other query running at the moment.
+     *
+     * @param requester (UUID) e.g. the player who used the command
+     * @param query (Supplier) the query
+     * @return (CompletableFuture) completes with the result on the query thread, or 'null'
+     *         if another query of the requester is still running
+     */
+    public <T> CompletableFuture<T> supply(UUID requester, Supplier<T> query) {
+        CompletableFuture<Void> placeholder = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(requester, placeholder) != null) return null;
+
+        CompletableFuture<T> future = supply(query);
+        inFlight.replace(requester, placeholder, future);
+        future.whenComplete((result, throwable) -> inFlight.remove(requester, future));
+        return future;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Math.max(1, Config.getStatsQueryThreads()), runnable -> {
+                Thread thread = new Thread(runnable, "MissileWars Stats-Query #" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * This method stops the query threads. Running queries are interrupted.
+     */
+    public synchronized void shutdown() {
+        if (executor == null) return;
+
+        executor.shutdownNow();
+        executor = null;
+        inFlight.clear();
+    }
+}
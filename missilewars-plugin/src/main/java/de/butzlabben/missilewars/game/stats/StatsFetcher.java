@@ -19,21 +19,37 @@
 package de.butzlabben.missilewars.game.stats;
 
 import de.butzlabben.missilewars.configuration.Config;
-import de.butzlabben.missilewars.util.ConnectionHolder;
+import de.butzlabben.missilewars.util.database.ConnectionPool;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import lombok.Getter;
 
 @Getter
 public class StatsFetcher {
 
+    // The names and skins of the players are joined from the player directory (see PlayerDirectory).
+    private static final String PLAYER_TOTALS_QUERY = "SELECT t.player, t.wins, t.loses, t.games_played, t.games_team1, t.games_team2," +
+            " n.name, n.texture, n.texture_signature FROM $mw_player_totals t LEFT JOIN $mw_players n ON n.player = t.player ";
+    private static final String PLAYER_DAILY_QUERY = "SELECT d.player, SUM(d.wins) AS wins, SUM(d.loses) AS loses," +
+            " SUM(d.games_played) AS games_played, SUM(d.games_team1) AS games_team1, SUM(d.games_team2) AS games_team2," +
+            " MAX(n.name) AS name, MAX(n.texture) AS texture, MAX(n.texture_signature) AS texture_signature" +
+            " FROM $mw_player_daily d LEFT JOIN $mw_players n ON n.player = d.player ";
+
     private final Date from;
     private final long time;
+    private final long day;
     private final String arena;
 
     public StatsFetcher(Date from, String arena) {
@@ -41,43 +57,67 @@ public class StatsFetcher {
         if (arena == null) {
             arena = "";
         }
-        this.arena = "%" + arena + "%";
+        this.arena = arena;
         time = getTime(from);
+        day = StatsRollup.toDay(time);
+    }
+
+    /**
+     * This method checks if the fetcher covers all fights. The all-time totals of the
+     * players can be used then instead of the daily buckets.
+     */
+    private boolean isUnfiltered() {
+        return (time == 0) && arena.isEmpty();
     }
 
     public int getGameCount() {
-        try {
-            PreparedStatement ps = ConnectionHolder.prepareStatement(replace("SELECT COUNT(*) FROM $mw_fights WHERE timestart >= ? AND arena LIKE ?"));
-            ps.setLong(1, time);
-            ps.setString(2, arena);
-            ResultSet rs = ConnectionHolder.executeQuery(ps);
-            if (rs.next()) {
-                return rs.getInt(1);
+        Integer value = cached("game_count", this::loadGameCount);
+        return (value == null) ? 0 : value;
+    }
+
+    private Integer loadGameCount() {
+        try (Connection connection = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(replace("SELECT COALESCE(SUM(fights), 0) FROM $mw_arena_daily WHERE day >= ? $arena_filter"))) {
+            setWindow(ps, day);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return 0;
+        return null;
     }
 
     public SavedStats getAverageSavedStats(boolean mustBeenWon) {
-        try {
-            String statement = "SELECT AVG(timeelapsed) as timeelapsed, " +
-                    "COUNT(case teamwon when 1 then 1 else null end) AS teamwon1, " +
-                    "COUNT(case teamwon when 2 then 1 else null end) AS teamwon2, " +
-                    "AVG(playercount) as playercount " +
-                    "FROM (" + getAllStatsQuery() + ") fights WHERE timestart >= ? AND teamwon != ?";
-            PreparedStatement ps = ConnectionHolder.prepareStatement(statement);
-            ps.setLong(1, time);
-            ps.setString(2, arena);
-            ps.setLong(3, time);
-            ps.setInt(4, mustBeenWon ? 0 : -1);
-
-            ResultSet rs = ConnectionHolder.executeQuery(ps);
-            if (rs.next()) {
-                double winRatio = (double) rs.getInt("teamwon1") / (double) rs.getInt("teamwon2");
-                return new SavedStats(rs.getLong("timeelapsed"), 0L,
-                        null, rs.getDouble("playercount"), winRatio);
+        return cached(mustBeenWon ? "average_won" : "average", () -> loadAverageSavedStats(mustBeenWon));
+    }
+
+    private SavedStats loadAverageSavedStats(boolean mustBeenWon) {
+        String statement = replace("SELECT COALESCE(SUM(fights), 0) AS fights, COALESCE(SUM(team1_wins), 0) AS team1_wins, " +
+                "COALESCE(SUM(team2_wins), 0) AS team2_wins, COALESCE(SUM(time_total), 0) AS time_total, " +
+                "COALESCE(SUM(time_won), 0) AS time_won, COALESCE(SUM(players_total), 0) AS players_total, " +
+                "COALESCE(SUM(players_won), 0) AS players_won " +
+                "FROM $mw_arena_daily WHERE day >= ? $arena_filter");
+        try (Connection connection = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(statement)) {
+            setWindow(ps, day);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    int teamWon1 = rs.getInt("team1_wins");
+                    int teamWon2 = rs.getInt("team2_wins");
+                    double winRatio = (double) teamWon1 / (double) teamWon2;
+
+                    long fights = mustBeenWon ? (teamWon1 + teamWon2) : rs.getLong("fights");
+                    long timeElapsed = rs.getLong(mustBeenWon ? "time_won" : "time_total");
+                    long players = rs.getLong(mustBeenWon ? "players_won" : "players_total");
+                    if (fights == 0) return new SavedStats(0L, 0L, null, 0, winRatio);
+
+                    return new SavedStats(timeElapsed / fights, 0L,
+                            null, (double) players / fights, winRatio);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -86,34 +126,56 @@ public class StatsFetcher {
     }
 
     public int getDrawFights() {
-        try {
-            PreparedStatement ps = ConnectionHolder.prepareStatement(replace("SELECT COUNT(*) FROM $mw_fights " +
-                    "WHERE teamwon = 0 AND timestart > ? AND arena LIKE ?"));
-            ps.setLong(1, time);
-            ps.setString(2, arena);
-            ResultSet rs = ConnectionHolder.executeQuery(ps);
-            if (rs.next()) {
-                return rs.getInt(1);
+        Integer value = cached("draw_fights", this::loadDrawFights);
+        return (value == null) ? 0 : value;
+    }
+
+    private Integer loadDrawFights() {
+        try (Connection connection = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(replace("SELECT COALESCE(SUM(draws), 0) FROM $mw_arena_daily " +
+                     "WHERE day >= ? $arena_filter"))) {
+            setWindow(ps, day);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return 0;
+        return null;
     }
 
-    public List<SavedStats> getAllStats() {
-        try {
-            PreparedStatement ps = ConnectionHolder.prepareStatement(getAllStatsQuery());
-            ps.setLong(1, time);
-            ps.setString(2, arena);
+    /**
+     * This method loads one page of the fights in the time and arena window of this
+     * fetcher, newest first. The page starts after the given fight (keyset pagination on
+     * the fight id), so the database doesn't have to skip the previous pages.
+     *
+     * @param last (SavedStats) the last fight of the previous page or 'null' for the first page
+     * @param limit (int) the maximum amount of fights
+     * @return (List) the fights or 'null', if the query failed
+     */
+    public List<SavedStats> getStatsPage(SavedStats last, int limit) {
+        String statement = "SELECT id, arena, teamwon, timeelapsed, timestart, COUNT($mw_fightmember.fid) as playercount " +
+                "FROM $mw_fights JOIN $mw_fightmember " +
+                "ON $mw_fights.id = $mw_fightmember.fid " +
+                "AND $mw_fights.timestart >= ? $arena_filter " +
+                ((last == null) ? "" : "AND $mw_fights.id < ? ") +
+                "GROUP BY $mw_fights.id ORDER BY $mw_fights.id DESC LIMIT ?";
 
-            ResultSet rs = ConnectionHolder.executeQuery(ps);
-            List<SavedStats> stats = new ArrayList<>();
-            while (rs.next()) {
-                stats.add(new SavedStats(rs.getLong("timeelapsed"), rs.getLong("timestart"),
-                        rs.getString("arena"), rs.getInt("playercount"), rs.getInt("teamwon")));
+        try (Connection connection = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(replace(statement))) {
+            int index = setWindow(ps, time);
+            if (last != null) ps.setInt(index++, last.getId());
+            ps.setInt(index, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<SavedStats> stats = new ArrayList<>();
+                while (rs.next()) {
+                    stats.add(toSavedStats(rs));
+                }
+                return stats;
             }
-            return stats;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -121,45 +183,82 @@ public class StatsFetcher {
         return null;
     }
 
+    private SavedStats toSavedStats(ResultSet rs) throws SQLException {
+        return new SavedStats(rs.getInt("id"), rs.getLong("timeelapsed"), rs.getLong("timestart"),
+                rs.getString("arena"), rs.getInt("playercount"), rs.getInt("teamwon"));
+    }
+
     public int getUniquePlayers() {
-        try {
-            PreparedStatement ps = ConnectionHolder.prepareStatement(replace("SELECT COUNT(DISTINCT($mw_fightmember.player)) as unique_players " +
-                    "FROM $mw_fightmember JOIN $mw_fights ON $mw_fightmember.fid = $mw_fights.id AND $mw_fights.timestart > ? AND $mw_fights.arena LIKE ?"));
-            ps.setLong(1, time);
-            ps.setString(2, arena);
-            ResultSet rs = ConnectionHolder.executeQuery(ps);
-            if (rs.next()) return rs.getInt("unique_players");
+        Integer value = cached("unique_players", this::loadUniquePlayers);
+        return (value == null) ? 0 : value;
+    }
+
+    private Integer loadUniquePlayers() {
+        String statement = isUnfiltered()
+                ? "SELECT COUNT(*) AS unique_players FROM $mw_player_totals"
+                : "SELECT COUNT(DISTINCT player) AS unique_players FROM $mw_player_daily WHERE day >= ? $arena_filter";
+
+        try (Connection connection = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(replace(statement))) {
+            if (!isUnfiltered()) {
+                setWindow(ps, day);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return rs.getInt("unique_players");
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return 0;
-    }
-
-    public List<UUID> getPlayers() {
-        try {
-            PreparedStatement ps = ConnectionHolder.prepareStatement(replace("SELECT DISTINCT($mw_fightmember.player) as unique_player " +
-                    "FROM $mw_fightmember JOIN $mw_fights ON $mw_fightmember.fid = $mw_fights.id AND $mw_fights.timestart > ? AND $mw_fights.arena LIKE ?"));
-            ps.setLong(1, time);
-            ps.setString(2, arena);
-            ResultSet rs = ConnectionHolder.executeQuery(ps);
-            List<UUID> list = new ArrayList<>(getUniquePlayers());
-            while (rs.next()) {
-                list.add(UUID.fromString(rs.getString("unique_player")));
+        return null;
+    }
+
+    /**
+     * This method returns the players of the time and arena window who are not in the
+     * player directory yet, so their names are unknown.
+     *
+     * @return (List) the players or 'null', if the query failed
+     */
+    public List<UUID> getUnnamedPlayers() {
+        String statement = isUnfiltered()
+                ? "SELECT t.player AS unique_player FROM $mw_player_totals t LEFT JOIN $mw_players n ON n.player = t.player" +
+                  " WHERE n.player IS NULL"
+                : "SELECT DISTINCT d.player AS unique_player FROM $mw_player_daily d LEFT JOIN $mw_players n ON n.player = d.player" +
+                  " WHERE n.player IS NULL AND d.day >= ? $arena_filter";
+
+        try (Connection connection = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(replace(statement))) {
+            if (!isUnfiltered()) {
+                setWindow(ps, day);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                List<UUID> list = new ArrayList<>();
+                while (rs.next()) {
+                    list.add(UUID.fromString(rs.getString("unique_player")));
+                }
+                return list;
             }
-            return list;
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return null;
     }
 
-    private String getAllStatsQuery() {
-        String statement = "SELECT id, arena, teamwon, timeelapsed, timestart, COUNT($mw_fightmember.fid) as playercount " +
-                "FROM $mw_fights JOIN $mw_fightmember " +
-                "ON $mw_fights.id = $mw_fightmember.fid " +
-                "AND $mw_fights.timestart >= ? AND $mw_fights.arena LIKE ? " +
-                "GROUP BY $mw_fights.id";
-        return replace(statement);
+    private <T> T cached(String kind, Supplier<T> loader) {
+        return StatsCache.getInstance().get(new StatsCache.Key(kind, time, arena), loader);
+    }
+
+    /**
+     * This method sets the parameters of the time and arena window. The arena is only
+     * filtered if one was specified (see '$arena_filter').
+     *
+     * @return (int) the index of the next parameter
+     */
+    private int setWindow(PreparedStatement ps, long from) throws SQLException {
+        ps.setLong(1, from);
+        if (arena.isEmpty()) return 2;
+
+        ps.setString(2, arena);
+        return 3;
     }
 
     private long getTime(Date from) {
@@ -171,64 +270,144 @@ public class StatsFetcher {
 
     private String replace(String statement) {
         // Replace dbs
-        statement = statement.replace("$mw_fights", Config.getFightsTable()).replace("$mw_fightmember", Config.getFightMembersTable());
+        statement = statement.replace("$mw_fights", Config.getFightsTable()).replace("$mw_fightmember", Config.getFightMembersTable())
+                .replace("$mw_player_totals", Config.getPlayerTotalsTable()).replace("$mw_player_daily", Config.getPlayerDailyTable())
+                .replace("$mw_arena_daily", Config.getArenaDailyTable()).replace("$mw_players", Config.getPlayersTable())
+                .replace("$arena_filter", arena.isEmpty() ? "" : "AND arena = ?");
         return statement;
     }
 
 
+    /**
+     * This method loads the statistics of all players who played in the time and arena
+     * window of this fetcher. The statistics are read from the rollup tables; the rows are
+     * streamed from the database into the consumer.
+     *
+     * @param consumer (Consumer) receives the statistics of each player
+     * @return true, if all statistics were loaded
+     */
+    public boolean forEachPlayerStats(Consumer<PlayerStats> consumer) {
+        String statement = isUnfiltered()
+                ? PLAYER_TOTALS_QUERY
+                : PLAYER_DAILY_QUERY + "WHERE d.day >= ? $arena_filter GROUP BY d.player";
+
+        try (Connection connection = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(replace(statement), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Lets the MySQL driver stream the rows instead of loading them at once.
+            ps.setFetchSize(Integer.MIN_VALUE);
+            if (!isUnfiltered()) {
+                setWindow(ps, day);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(toPlayerStats(UUID.fromString(rs.getString("player")), rs));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    public List<PlayerStats> getAllPlayerStats() {
+        List<PlayerStats> stats = new ArrayList<>();
+        if (!forEachPlayerStats(stats::add)) return null;
+        return stats;
+    }
+
+    /**
+     * This method loads the all-time statistics of a single player.
+     *
+     * @param uuid (UUID) the player
+     * @return (PlayerStats) the statistics or 'null', if the player has no fights
+     */
     public PlayerStats getStatsFrom(UUID uuid) {
-        try {
-            String statement = "SELECT" +
-                    " (SELECT Count(*) AS wins" +
-                    "  FROM $mw_fightmember" +
-                    "  JOIN $mw_fights ON $mw_fightmember.fid = $mw_fights.id" +
-                    "  WHERE $mw_fightmember.player = ?" +
-                    "   AND (($mw_fights.teamwon = 1" +
-                    "         AND $mw_fightmember.team = 1)" +
-                    "        OR ($mw_fights.teamwon = 2" +
-                    "            AND $mw_fightmember.team = 2)) ) AS wins," +
-                    " (SELECT count(*) AS loses" +
-                    "  FROM $mw_fightmember" +
-                    "  JOIN $mw_fights ON $mw_fightmember.fid = $mw_fights.id" +
-                    "  WHERE $mw_fightmember.player = ?" +
-                    "   AND (($mw_fights.teamwon = 1" +
-                    "         AND $mw_fightmember.team = 2)" +
-                    "        OR ($mw_fights.teamwon = 2" +
-                    "            AND $mw_fightmember.team = 1)) ) AS loses," +
-                    " (SELECT count(*) AS games" +
-                    "  FROM $mw_fightmember" +
-                    "  JOIN $mw_fights ON $mw_fightmember.fid = $mw_fights.id" +
-                    "  WHERE $mw_fightmember.player = ? ) AS games_played," +
-                    " (SELECT count(*) AS games_team1" +
-                    "  FROM $mw_fightmember" +
-                    "  JOIN $mw_fights ON $mw_fightmember.fid = $mw_fights.id" +
-                    "  WHERE $mw_fightmember.player = ?" +
-                    "   AND $mw_fightmember.team = 1 ) AS games_team1," +
-                    " (SELECT count(*) AS games_team2" +
-                    "  FROM $mw_fightmember" +
-                    "  JOIN $mw_fights ON $mw_fightmember.fid = $mw_fights.id" +
-                    "  WHERE $mw_fightmember.player = ?" +
-                    "   AND $mw_fightmember.team = 2 ) AS games_team2 " +
-                    "FROM $mw_fightmember " +
-                    "WHERE $mw_fightmember.player = ? " +
-                    "GROUP BY $mw_fightmember.player ";
-            statement = replace(statement);
-            PreparedStatement ps = ConnectionHolder.prepareStatement(statement);
+        String statement = replace(PLAYER_TOTALS_QUERY + "WHERE t.player = ?");
+
+        try (Connection connection = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(statement)) {
             ps.setString(1, uuid.toString());
-            ps.setString(2, uuid.toString());
-            ps.setString(3, uuid.toString());
-            ps.setString(4, uuid.toString());
-            ps.setString(5, uuid.toString());
-            ps.setString(6, uuid.toString());
-
-            ResultSet rs = ConnectionHolder.executeQuery(ps);
-            if (rs.next()) {
-                return new PlayerStats(uuid, rs.getInt("wins"), rs.getInt("loses"),
-                        rs.getInt("games_played"), rs.getInt("games_team1"), rs.getInt("games_team2"));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return toPlayerStats(uuid, rs);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * This method loads the all-time statistics of several players with one query.
+     *
+     * @param uuids (Collection) the players
+     * @return (Map) the statistics of the players with fights or 'null', if the query failed
+     */
+    public Map<UUID, PlayerStats> getStatsFrom(Collection<UUID> uuids) {
+        Map<UUID, PlayerStats> stats = new HashMap<>();
+        if (uuids.isEmpty()) return stats;
+
+        String statement = replace(PLAYER_TOTALS_QUERY + "WHERE t.player IN (" + String.join(", ", Collections.nCopies(uuids.size(), "?")) + ")");
+
+        try (Connection connection = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(statement)) {
+            int index = 1;
+            for (UUID uuid : uuids) {
+                ps.setString(index++, uuid.toString());
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid = UUID.fromString(rs.getString("player"));
+                    stats.put(uuid, toPlayerStats(uuid, rs));
+                }
+            }
+            return stats;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * This method loads the players with the highest all-time value of a column of the
+     * player totals.
+     *
+     * @param column (String) the column to sort by, e.g. 'wins'
+     * @param limit (int) the maximum amount of players
+     * @return (List) the players in descending order or 'null', if the query failed
+     */
+    List<PlayerStats> getTopPlayers(String column, int limit) {
+        String statement = replace(PLAYER_TOTALS_QUERY + "ORDER BY t." + column + " DESC, t.player LIMIT ?");
+
+        try (Connection connection = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(statement)) {
+            ps.setInt(1, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<PlayerStats> stats = new ArrayList<>();
+                while (rs.next()) {
+                    UUID uuid = UUID.fromString(rs.getString("player"));
+                    stats.add(toPlayerStats(uuid, rs));
+                }
+                return stats;
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return null;
     }
+
+    private PlayerStats toPlayerStats(UUID uuid, ResultSet rs) throws SQLException {
+        PlayerStats stats = new PlayerStats(uuid, rs.getInt("wins"), rs.getInt("loses"),
+                rs.getInt("games_played"), rs.getInt("games_team1"), rs.getInt("games_team2"));
+        stats.setName(rs.getString("name"));
+        stats.setTexture(rs.getString("texture"));
+        stats.setTextureSignature(rs.getString("texture_signature"));
+        return stats;
+    }
 }
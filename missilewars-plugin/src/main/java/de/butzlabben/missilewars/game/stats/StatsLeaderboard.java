@@ -0,0 +1,177 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.game.stats;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.MissileWars;
+import de.butzlabben.missilewars.configuration.Config;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * This class provides the leaderboards and the statistics of the online players for the
+ * placeholders.
+ * <p>
+ * Placeholders are requested very often, e.g. by holograms and the tab list. So the data
+ * is refreshed in the background on an interval and the placeholders are only served from
+ * the last snapshot. A placeholder request never waits for the database.
+ */
+public class StatsLeaderboard {
+
+    @Getter
+    private static final StatsLeaderboard instance = new StatsLeaderboard();
+
+    private static final int MAX_PLAYERS_PER_QUERY = 500;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyMap());
+    private BukkitTask task;
+    private volatile boolean refreshing = false;
+
+    /**
+     * This method starts the regular refresh of the leaderboards.
+     */
+    public void start() {
+        if (task != null) return;
+
+        long interval = Math.max(1, Config.getLeaderboardRefreshInterval()) * 20L;
+        task = Bukkit.getScheduler().runTaskTimer(MissileWars.getInstance(), this::refresh, 20L, interval);
+    }
+
+    /**
+     * This method stops the regular refresh of the leaderboards.
+     */
+    public void shutdown() {
+        if (task == null) return;
+
+        task.cancel();
+        task = null;
+    }
+
+    /**
+     * This method returns an entry of a leaderboard.
+     *
+     * @param category (Category) the leaderboard
+     * @param rank (int) the rank, starting at 1
+     * @return (Entry) the entry or 'null', if the leaderboard has no such rank (yet)
+     */
+    public Entry getEntry(Category category, int rank) {
+        List<Entry> entries = snapshot.leaderboards().getOrDefault(category, Collections.emptyList());
+        if ((rank < 1) || (rank > entries.size())) return null;
+        return entries.get(rank - 1);
+    }
+
+    /**
+     * This method returns the all-time statistics of an online player.
+     *
+     * @param uuid (UUID) the player
+     * @return (PlayerStats) the statistics or 'null', if the player was not online
+     *         during the last refresh
+     */
+    public PlayerStats getStats(UUID uuid) {
+        return snapshot.players().get(uuid);
+    }
+
+    private void refresh() {
+        if (refreshing) return;
+
+        // The online players are collected on the main thread.
+        List<UUID> onlinePlayers = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            onlinePlayers.add(player.getUniqueId());
+        }
+
+        refreshing = true;
+        StatsExecutor.getInstance().supply(() -> load(onlinePlayers)).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                Logger.WARN.log("Could not refresh the statistics leaderboards: " + throwable.getMessage());
+            } else if (result != null) {
+                snapshot = result;
+            }
+            refreshing = false;
+        });
+    }
+
+    private Snapshot load(List<UUID> onlinePlayers) {
+        StatsFetcher fetcher = new StatsFetcher(null, null);
+        int size = Math.max(1, Config.getLeaderboardSize());
+
+        Map<Category, List<Entry>> leaderboards = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            List<PlayerStats> stats = fetcher.getTopPlayers(category.getColumn(), size);
+            if (stats == null) return null;
+
+            List<Entry> entries = new ArrayList<>(stats.size());
+            for (PlayerStats playerStats : stats) {
+                String name = playerStats.getName();
+                if (name == null) name = Bukkit.getOfflinePlayer(playerStats.getUuid()).getName();
+                entries.add(new Entry(playerStats.getUuid(), (name == null) ? "?" : name, category.getValue(playerStats)));
+            }
+            leaderboards.put(category, Collections.unmodifiableList(entries));
+        }
+
+        Map<UUID, PlayerStats> players = new HashMap<>();
+        for (int i = 0; i < onlinePlayers.size(); i += MAX_PLAYERS_PER_QUERY) {
+            List<UUID> uuids = onlinePlayers.subList(i, Math.min(onlinePlayers.size(), i + MAX_PLAYERS_PER_QUERY));
+            Map<UUID, PlayerStats> stats = fetcher.getStatsFrom(uuids);
+            if (stats == null) return null;
+
+            // Players without fights are stored with empty statistics.
+            for (UUID uuid : uuids) {
+                players.put(uuid, stats.getOrDefault(uuid, new PlayerStats(uuid, 0, 0, 0, 0, 0)));
+            }
+        }
+
+        return new Snapshot(leaderboards, players);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Category {
+        WINS("wins"),
+        LOSES("loses"),
+        GAMES("games_played");
+
+        private final String column;
+
+        int getValue(PlayerStats stats) {
+            return switch (this) {
+                case WINS -> stats.getWins();
+                case LOSES -> stats.getLoses();
+                case GAMES -> stats.getGamesPlayed();
+            };
+        }
+    }
+
+    public record Entry(UUID uuid, String name, int value) {
+    }
+
+    private record Snapshot(Map<Category, List<Entry>> leaderboards, Map<UUID, PlayerStats> players) {
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.game.stats;
+
+import de.butzlabben.missilewars.Logger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+
+/**
+ * This class is a named MySQL lock (see 'GET_LOCK'). Several servers can share the
+ * statistics database, so the steps which must not overlap between them hold such a
+ * lock. It belongs to the connection and is released when it's closed.
+ * <p>
+ * The schema migration, the rollup rebuild and the fight inserts all use the one
+ * {@link #WRITE} lock. A connection never holds two named locks: before MySQL 5.7 (and
+ * MariaDB 10.0.2), a second 'GET_LOCK' silently released the first one.
+ */
+class StatsLock implements AutoCloseable {
+
+    static final String WRITE = "missilewars_stats_write";
+
+    private final Connection connection;
+    private final String name;
+
+    private StatsLock(Connection connection, String name) {
+        this.connection = connection;
+        this.name = name;
+    }
+
+    /**
+     * This method waits for the lock.
+     *
+     * @param connection (Connection) the connection to hold the lock
+     * @param name (String) the name of the lock
+     * @param timeout (int) the maximum waiting time in seconds
+     * @return (StatsLock) the held lock
+     * @throws SQLException if the lock could not be taken in time; this is a transient
+     * error, the step can be retried later
+     */
+    static StatsLock acquire(Connection connection, String name, int timeout) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, name);
+            ps.setInt(2, timeout);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && (rs.getInt(1) == 1)) return new StatsLock(connection, name);
+            }
+        }
+        throw new SQLTransientException("Could not get the lock \"" + name + "\". Another server holds it.");
+    }
+
+    @Override
+    public void close() {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, name);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            Logger.WARN.log("Could not release the lock \"" + name + "\": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.game.stats;
+
+import de.butzlabben.missilewars.configuration.Config;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This class maintains the aggregated statistics next to the raw fight tables:
+ * <ul>
+ *     <li>the all-time totals of each player</li>
+ *     <li>the totals of each player per arena and day</li>
+ *     <li>the totals of each arena per day</li>
+ * </ul>
+ * The rollups are updated in the same transaction as the fight itself, so they never
+ * differ from the raw tables. The days are counted in the time zone of the server, like
+ * the dates of the stats commands.
+ */
+class StatsRollup {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final Map<ArenaDay, ArenaBucket> arenaBuckets = new HashMap<>();
+    private final Map<PlayerDay, PlayerBucket> playerBuckets = new HashMap<>();
+    private final Map<UUID, PlayerBucket> playerTotals = new HashMap<>();
+
+    /**
+     * This method returns the day of the time, counted in the time zone of the server.
+     *
+     * @param time (long) the time in milliseconds
+     * @return (long) the epoch day
+     */
+    static long toDay(long time) {
+        return Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    static void createTables(Statement statement) throws SQLException {
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + Config.getPlayerTotalsTable() +
+                " (player varchar(36) NOT NULL PRIMARY KEY, wins int NOT NULL, loses int NOT NULL, games_played int NOT NULL, " +
+                "games_team1 int NOT NULL, games_team2 int NOT NULL)");
+
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + Config.getPlayerDailyTable() +
+                " (player varchar(36) NOT NULL, arena varchar(255) NOT NULL, day int NOT NULL, wins int NOT NULL, loses int NOT NULL, " +
+                "games_played int NOT NULL, games_team1 int NOT NULL, games_team2 int NOT NULL, PRIMARY KEY (player, arena, day))");
+
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + Config.getArenaDailyTable() +
+                " (arena varchar(255) NOT NULL, day int NOT NULL, fights int NOT NULL, draws int NOT NULL, team1_wins int NOT NULL, " +
+                "team2_wins int NOT NULL, time_total bigint NOT NULL, time_won bigint NOT NULL, players_total bigint NOT NULL, " +
+                "players_won bigint NOT NULL, PRIMARY KEY (arena, day))");
+    }
+
+    /**
+     * This method adds a fight to the rollup.
+     *
+     * @param fight (FightStats) the fight
+     */
+    void add(FightStats fight) {
+        long day = toDay(fight.getTimeStart());
+        boolean won = fight.getTeamWon() != 0;
+
+        ArenaBucket arenaBucket = arenaBuckets.computeIfAbsent(new ArenaDay(fight.getArenaName(), day), key -> new ArenaBucket());
+        arenaBucket.fights++;
+        if (!won) arenaBucket.draws++;
+        if (fight.getTeamWon() == 1) arenaBucket.team1Wins++;
+        if (fight.getTeamWon() == 2) arenaBucket.team2Wins++;
+        arenaBucket.timeTotal += fight.getTimeElapsed();
+        arenaBucket.playersTotal += fight.getMembers().size();
+        if (won) {
+            arenaBucket.timeWon += fight.getTimeElapsed();
+            arenaBucket.playersWon += fight.getMembers().size();
+        }
+
+        for (FightStats.Member member : fight.getMembers()) {
+            playerBuckets.computeIfAbsent(new PlayerDay(member.player(), fight.getArenaName(), day), key -> new PlayerBucket())
+                    .add(member.team(), fight.getTeamWon());
+            playerTotals.computeIfAbsent(member.player(), key -> new PlayerBucket())
+                    .add(member.team(), fight.getTeamWon());
+        }
+    }
+
+    /**
+     * This method adds the collected values to the rollup tables. It doesn't commit, the
+     * caller runs it in the transaction of the fight.
+     *
+     * @param connection (Connection) the connection to use
+     */
+    void flush(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + Config.getArenaDailyTable() +
+                " (arena, day, fights, draws, team1_wins, team2_wins, time_total, time_won, players_total, players_won)" +
+                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE" +
+                " fights = fights + VALUES(fights), draws = draws + VALUES(draws)," +
+                " team1_wins = team1_wins + VALUES(team1_wins), team2_wins = team2_wins + VALUES(team2_wins)," +
+                " time_total = time_total + VALUES(time_total), time_won = time_won + VALUES(time_won)," +
+                " players_total = players_total + VALUES(players_total), players_won = players_won + VALUES(players_won)")) {
+            int batched = 0;
+            for (Map.Entry<ArenaDay, ArenaBucket> entry : arenaBuckets.entrySet()) {
+                ArenaBucket bucket = entry.getValue();
+                ps.setString(1, entry.getKey().arena());
+                ps.setLong(2, entry.getKey().day());
+                ps.setInt(3, bucket.fights);
+                ps.setInt(4, bucket.draws);
+                ps.setInt(5, bucket.team1Wins);
+                ps.setInt(6, bucket.team2Wins);
+                ps.setLong(7, bucket.timeTotal);
+                ps.setLong(8, bucket.timeWon);
+                ps.setLong(9, bucket.playersTotal);
+                ps.setLong(10, bucket.playersWon);
+                batched = addBatch(ps, batched);
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + Config.getPlayerDailyTable() +
+                " (player, arena, day, wins, loses, games_played, games_team1, games_team2)" +
+                " VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE" + PlayerBucket.UPDATE_COLUMNS)) {
+            int batched = 0;
+            for (Map.Entry<PlayerDay, PlayerBucket> entry : playerBuckets.entrySet()) {
+                ps.setString(1, entry.getKey().player().toString());
+                ps.setString(2, entry.getKey().arena());
+                ps.setLong(3, entry.getKey().day());
+                entry.getValue().setParameters(ps, 4);
+                batched = addBatch(ps, batched);
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + Config.getPlayerTotalsTable() +
+                " (player, wins, loses, games_played, games_team1, games_team2)" +
+                " VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE" + PlayerBucket.UPDATE_COLUMNS)) {
+            int batched = 0;
+            for (Map.Entry<UUID, PlayerBucket> entry : playerTotals.entrySet()) {
+                ps.setString(1, entry.getKey().toString());
+                entry.getValue().setParameters(ps, 2);
+                batched = addBatch(ps, batched);
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static int addBatch(PreparedStatement ps, int batched) throws SQLException {
+        ps.addBatch();
+        if (++batched < BATCH_SIZE) return batched;
+
+        ps.executeBatch();
+        return 0;
+    }
+
+    /**
+     * This method rebuilds all rollup tables from the raw fight tables in one
+     * transaction. It must not run at the same time as a fight is inserted, so the
+     * caller holds the write lock (see {@link StatsLock#WRITE}).
+     *
+     * @param connection (Connection) the connection to use
+     * @return (int) the amount of processed fights
+     */
+    static int rebuild(Connection connection) throws SQLException {
+        StatsRollup rollup = new StatsRollup();
+        int fights = 0;
+
+        try (PreparedStatement ps = connection.prepareStatement("SELECT f.id, f.arena, f.timestart, f.timeelapsed, f.teamwon, m.player, m.team " +
+                "FROM " + Config.getFightsTable() + " f LEFT JOIN " + Config.getFightMembersTable() + " m ON m.fid = f.id " +
+                "ORDER BY f.id", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Lets the MySQL driver stream the rows instead of loading them at once.
+            ps.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                int fightID = -1;
+                String arena = null;
+                long timeStart = 0, timeElapsed = 0;
+                int teamWon = 0;
+                List<FightStats.Member> members = new ArrayList<>();
+
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    if (id != fightID) {
+                        if (fightID != -1) {
+                            rollup.add(new FightStats(arena, timeStart, timeElapsed, teamWon, members));
+                            fights++;
+                        }
+
+                        fightID = id;
+                        arena = rs.getString("arena");
+                        timeStart = rs.getLong("timestart");
+                        timeElapsed = rs.getLong("timeelapsed");
+                        teamWon = rs.getInt("teamwon");
+                        members = new ArrayList<>();
+                    }
+
+                    String player = rs.getString("player");
+                    if (player != null) members.add(new FightStats.Member(UUID.fromString(player), rs.getInt("team")));
+                }
+
+                if (fightID != -1) {
+                    rollup.add(new FightStats(arena, timeStart, timeElapsed, teamWon, members));
+                    fights++;
+                }
+            }
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM " + Config.getPlayerTotalsTable());
+                statement.executeUpdate("DELETE FROM " + Config.getPlayerDailyTable());
+                statement.executeUpdate("DELETE FROM " + Config.getArenaDailyTable());
+            }
+            rollup.flush(connection);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+            throw e;
+        }
+        return fights;
+    }
+
+    private record ArenaDay(String arena, long day) {
+    }
+
+    private record PlayerDay(UUID player, String arena, long day) {
+    }
+
+    private static class ArenaBucket {
+        private int fights, draws, team1Wins, team2Wins;
+        private long timeTotal, timeWon, playersTotal, playersWon;
+    }
+
+    private static class PlayerBucket {
+
+        private static final String UPDATE_COLUMNS = " wins = wins + VALUES(wins), loses = loses + VALUES(loses)," +
+                " games_played = games_played + VALUES(games_played), games_team1 = games_team1 + VALUES(games_team1)," +
+                " games_team2 = games_team2 + VALUES(games_team2)";
+
+        private int wins, loses, gamesPlayed, gamesTeam1, gamesTeam2;
+
+        private void add(int team, int teamWon) {
+            gamesPlayed++;
+            if (team == 1) gamesTeam1++;
+            else gamesTeam2++;
+
+            if (teamWon == 0) return;
+            if (teamWon == team) wins++;
+            else loses++;
+        }
+
+        private void setParameters(PreparedStatement ps, int index) throws SQLException {
+            ps.setInt(index, wins);
+            ps.setInt(index + 1, loses);
+            ps.setInt(index + 2, gamesPlayed);
+            ps.setInt(index + 3, gamesTeam1);
+            ps.setInt(index + 4, gamesTeam2);
+        }
+    }
+}
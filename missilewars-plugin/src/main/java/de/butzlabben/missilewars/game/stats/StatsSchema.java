@@ -0,0 +1,203 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.game.stats;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.configuration.Config;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * This class creates and updates the tables of the fight statistics.
+ * <p>
+ * The schema is changed by ordered migration steps. The applied versions are saved in a
+ * schema version table, so every step runs only once per database. DDL statements can't
+ * be rolled back in MySQL, so each step is written to be safe to repeat after a failure.
+ * Several servers can share the database: the migration holds the write lock (see
+ * {@link StatsLock}), so no fight is inserted meanwhile.
+ */
+class StatsSchema {
+
+    private static final int LOCK_TIMEOUT = 30;
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create the fight tables", StatsSchema::createFightTables),
+            new Migration(2, "Index the time and members of the fights", StatsSchema::indexFights),
+            new Migration(3, "Store the arena as indexed varchar", StatsSchema::indexArena),
+            new Migration(4, "Create and fill the rollup tables", StatsSchema::createRollupTables),
+            new Migration(5, "Index the player totals for the leaderboards", StatsSchema::indexLeaderboards),
+            new Migration(6, "Create the player name directory", StatsSchema::createPlayerDirectory),
+            new Migration(7, "Add a unique id to the fights", StatsSchema::addFightId)
+    );
+
+    private StatsSchema() {
+    }
+
+    /**
+     * This method applies all missing migration steps.
+     *
+     * @param connection (Connection) the connection to use
+     * @throws SQLException if a step failed; the following steps are not applied then
+     */
+    static void migrate(Connection connection) throws SQLException {
+        try (StatsLock ignored = StatsLock.acquire(connection, StatsLock.WRITE, LOCK_TIMEOUT)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + Config.getSchemaVersionTable() +
+                        " (version int NOT NULL PRIMARY KEY, description varchar(255) NOT NULL, applied_at bigint NOT NULL)");
+            }
+
+            int currentVersion = getCurrentVersion(connection);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() <= currentVersion) continue;
+
+                long startTime = System.currentTimeMillis();
+                migration.step().apply(connection);
+                saveVersion(connection, migration);
+                Logger.NORMAL.log("Updated the statistics tables to version " + migration.version() + " (" + migration.description()
+                        + ") in " + (System.currentTimeMillis() - startTime) + " ms.");
+            }
+        }
+    }
+
+    private static int getCurrentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(version), 0) FROM " + Config.getSchemaVersionTable())) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void saveVersion(Connection connection, Migration migration) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("INSERT IGNORE INTO " + Config.getSchemaVersionTable() +
+                " (version, description, applied_at) VALUES (?, ?, ?)")) {
+            ps.setInt(1, migration.version());
+            ps.setString(2, migration.description());
+            ps.setLong(3, System.currentTimeMillis());
+            ps.executeUpdate();
+        }
+    }
+
+    private static boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            return rs.next();
+        }
+    }
+
+    private static void addIndex(Connection connection, String table, String index, String columns) throws SQLException {
+        if (hasIndex(connection, table, index)) return;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    private static void createFightTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + Config.getFightsTable() + "(id int NOT NULL AUTO_INCREMENT PRIMARY KEY, arena TEXT NOT NULL, " +
+                    "timestart bigint(20), timeelapsed bigint(20), teamwon int UNSIGNED)");
+
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + Config.getFightMembersTable() +
+                    " (fid int, player varchar(36), team tinyint(4), PRIMARY KEY (player, fid))");
+        }
+    }
+
+    private static void indexFights(Connection connection) throws SQLException {
+        addIndex(connection, Config.getFightsTable(), "idx_timestart", "timestart");
+        addIndex(connection, Config.getFightMembersTable(), "idx_fid", "fid");
+        addIndex(connection, Config.getFightMembersTable(), "idx_player_team", "player, team");
+    }
+
+    private static void indexArena(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // Longer or missing names would fail the change in strict mode or be truncated otherwise.
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(CHAR_LENGTH(arena)), 0), " +
+                    "COALESCE(SUM(arena IS NULL), 0) FROM " + Config.getFightsTable())) {
+                if (rs.next() && ((rs.getInt(1) > 255) || (rs.getInt(2) > 0))) {
+                    throw new SQLException("The table " + Config.getFightsTable() + " contains " + rs.getInt(2)
+                            + " fight(s) without an arena and arena names of up to " + rs.getInt(1) + " characters. "
+                            + "The arena must be set and at most 255 characters long. Please correct these fights manually.");
+                }
+            }
+
+            statement.executeUpdate("ALTER TABLE " + Config.getFightsTable() + " MODIFY arena varchar(255) NOT NULL");
+        }
+        addIndex(connection, Config.getFightsTable(), "idx_arena_timestart", "arena, timestart");
+    }
+
+    private static void createRollupTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            StatsRollup.createTables(statement);
+        }
+        addIndex(connection, Config.getPlayerDailyTable(), "idx_day_arena", "day, arena");
+
+        // The fights of older versions are not part of the rollups yet. The write lock of
+        // the migration is held already.
+        int fights = StatsRollup.rebuild(connection);
+        connection.setAutoCommit(true);
+        Logger.NORMAL.log("Filled the statistics rollups with " + fights + " fights.");
+    }
+
+    private static void indexLeaderboards(Connection connection) throws SQLException {
+        addIndex(connection, Config.getPlayerTotalsTable(), "idx_wins", "wins");
+        addIndex(connection, Config.getPlayerTotalsTable(), "idx_loses", "loses");
+        addIndex(connection, Config.getPlayerTotalsTable(), "idx_games_played", "games_played");
+    }
+
+    private static void createPlayerDirectory(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            PlayerDirectory.createTable(statement);
+        }
+        addIndex(connection, Config.getPlayersTable(), "idx_name", "name");
+    }
+
+    private static void addFightId(Connection connection) throws SQLException {
+        if (!hasColumn(connection, Config.getFightsTable(), "fight_uuid")) {
+            try (Statement statement = connection.createStatement()) {
+                // The fights of older versions keep 'NULL', which the unique index allows several times.
+                statement.executeUpdate("ALTER TABLE " + Config.getFightsTable() + " ADD COLUMN fight_uuid varchar(36) NULL");
+            }
+        }
+        if (hasIndex(connection, Config.getFightsTable(), "uk_fight_uuid")) return;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE UNIQUE INDEX uk_fight_uuid ON " + Config.getFightsTable() + " (fight_uuid)");
+        }
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private record Migration(int version, String description, Step step) {
+    }
+}
@@ -33,6 +33,8 @@ import org.bukkit.entity.Player;
  */
 public class GameTimer extends Timer {
     
+    private static final int PORTAL_CHECK_INTERVAL = 5;
+    
     int actionbarMsgCounter = 0;
     
     public GameTimer(Game game, int startTime) {
@@ -109,7 +111,8 @@ public class GameTimer extends Timer {
             }
         }
         
-        getGame().checkPortals();
+        // The portal destruction is detected by the block events. This is only the safety net:
+        if (seconds % PORTAL_CHECK_INTERVAL == 0) getGame().checkPortals();
         
         seconds--;
     }
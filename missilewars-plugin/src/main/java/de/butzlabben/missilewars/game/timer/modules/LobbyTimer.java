@@ -80,6 +80,8 @@ public class LobbyTimer extends Timer {
                     resetSeconds();
                     return;
                 }
+                // The in-place restore of the arena must be finished first.
+                if ((getGame().getGameWorld() != null) && getGame().getGameWorld().isRegenerating()) return;
                 executeGameStart();
                 return;
             default:
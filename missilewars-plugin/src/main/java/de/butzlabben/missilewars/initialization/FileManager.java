@@ -3,9 +3,8 @@ package de.butzlabben.missilewars.initialization;
 import de.butzlabben.missilewars.Logger;
 import de.butzlabben.missilewars.MissileWars;
 import de.butzlabben.missilewars.configuration.Config;
+import de.butzlabben.missilewars.game.WorldDeleter;
 import de.butzlabben.missilewars.player.PlayerData;
-import org.apache.commons.io.FileUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -21,10 +20,10 @@ public class FileManager {
     
     public static void setupRoutine() {
         
-        deleteTempWorlds();
-        
         ConfigLoader.loadMainConfigs();
         
+        deleteTempWorlds();
+        
         saveDefaultResource(Config.getMissilesFolder(), "missiles.zip", MissileWars.getInstance());
         saveDefaultResource(Config.getShieldsFolder(), "shields.zip", MissileWars.getInstance());
         
@@ -39,19 +38,10 @@ public class FileManager {
     
     /**
      * This methode deletes the old MissileWars (temporary) arena world from the last server session, if still exists.
+     * The worlds are only moved out of the way here and deleted in the background.
      */
     private static void deleteTempWorlds() {
-        File[] dirs = Bukkit.getWorldContainer().listFiles();
-        if (dirs == null) return;
-
-        for (File dir : dirs) {
-            if (dir.getName().startsWith("mw-")) {
-                try {
-                    FileUtils.deleteDirectory(dir);
-                } catch (Exception ignored) {
-                }
-            }
-        }
+        WorldDeleter.getInstance().deleteTempWorlds();
     }
     
     /**
@@ -25,34 +25,44 @@ import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 
+import java.util.function.Consumer;
+
 /**
  * @author Butzlabben
  * @since 20.05.2018
  */
 public class InventoryPage extends OrcInventory {
 
-    InventoryPage next, before = null;
     private int i = 0;
 
     public InventoryPage(String title, int page, int pages) {
+        this(title, page, pages, null, null);
+    }
+
+    /**
+     * @param title (String) the inventory title
+     * @param page (int) the number of this page
+     * @param pages (int) the amount of pages or -1, if it's unknown
+     * @param onPrevious (Consumer) opens the previous page or 'null', if there is none
+     * @param onNext (Consumer) opens the next page or 'null', if there is none
+     */
+    public InventoryPage(String title, int page, int pages, Consumer<Player> onPrevious, Consumer<Player> onNext) {
         super(title, 6);
 
-        OrcItem oi = new OrcItem(Material.SUNFLOWER, "§aPage §e" + page + " §aof§e " + pages);
+        OrcItem oi = new OrcItem(Material.SUNFLOWER, (pages > 0) ? "§aPage §e" + page + " §aof§e " + pages : "§aPage §e" + page);
         addItem(5, 4, oi);
 
-        oi = new OrcItem(Material.PAPER, "§ePrevious page");
-        oi.setOnClick((p, inv, item) -> {
-            p.closeInventory();
-            p.openInventory(this.before.getInventory(p));
-        });
-        addItem(5, 0, oi);
+        if (onPrevious != null) {
+            oi = new OrcItem(Material.PAPER, "§ePrevious page");
+            oi.setOnClick((p, inv, item) -> onPrevious.accept(p));
+            addItem(5, 0, oi);
+        }
 
-        oi = new OrcItem(Material.PAPER, "§eNext page");
-        oi.setOnClick((p, inv, item) -> {
-            p.closeInventory();
-            p.openInventory(this.next.getInventory(p));
-        });
-        addItem(5, 8, oi);
+        if (onNext != null) {
+            oi = new OrcItem(Material.PAPER, "§eNext page");
+            oi.setOnClick((p, inv, item) -> onNext.accept(p));
+            addItem(5, 8, oi);
+        }
     }
 
     @Override
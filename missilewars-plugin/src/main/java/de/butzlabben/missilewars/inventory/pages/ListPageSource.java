@@ -0,0 +1,47 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.inventory.pages;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This class is a {@link PageSource} for elements which are already in memory.
+ */
+public class ListPageSource<T> implements PageSource<T> {
+
+    private final List<T> elements;
+
+    public ListPageSource(Collection<T> elements) {
+        this.elements = new ArrayList<>(elements);
+    }
+
+    @Override
+    public List<T> load(int offset, T last, int limit) {
+        if (offset >= elements.size()) return List.of();
+        return new ArrayList<>(elements.subList(offset, Math.min(elements.size(), offset + limit)));
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+}
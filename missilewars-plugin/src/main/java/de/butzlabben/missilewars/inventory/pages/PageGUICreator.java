@@ -19,83 +19,206 @@
 package de.butzlabben.missilewars.inventory.pages;
 
 
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.MissileWars;
+import de.butzlabben.missilewars.configuration.PluginMessages;
+import de.butzlabben.missilewars.game.stats.StatsExecutor;
 import de.butzlabben.missilewars.inventory.OrcItem;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import lombok.Getter;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
 
 /**
+ * This class shows elements on several inventory pages.
+ * <p>
+ * The pages are created lazily: a page is loaded from the {@link PageSource} and its
+ * items are converted only when the player navigates to it. The last rendered pages are
+ * kept per viewer, so going back and forth doesn't load them again. The pages are loaded
+ * on the statistics query threads (see {@link StatsExecutor}), with at most one running
+ * query per player.
+ *
  * @author Butzlabben
  * @since 21.05.2018
  */
 public class PageGUICreator<T> {
 
+    private static final int MAX_CACHED_PAGES = 5;
+
     private final int elementsPerPage;
     private final String title;
-    @Getter
-    private final List<T> elements;
+    private final PageSource<T> source;
     private final ItemConverter<T> converter;
     private final Map<Integer, OrcItem> specialItems;
-    @Getter
-    private List<InventoryPage> invPages;
+    private final Map<UUID, View> views = new HashMap<>();
+    private BiConsumer<Player, List<T>> pageListener;
 
     public PageGUICreator(String title, Collection<T> elements, ItemConverter<T> converter) {
-        this(title, elements, converter, Collections.emptyMap(), 4 * 9);
+        this(title, new ListPageSource<>(elements), converter, Collections.emptyMap(), 4 * 9);
     }
 
     public PageGUICreator(String title, Collection<T> elements, ItemConverter<T> converter, Map<Integer, OrcItem> specialItems) {
-        this(title, elements, converter, specialItems, 4 * 9);
+        this(title, new ListPageSource<>(elements), converter, specialItems, 4 * 9);
     }
 
-    public PageGUICreator(String title, Collection<T> elements, ItemConverter<T> converter, Map<Integer, OrcItem> specialItems, int elementsPerPage) {
+    public PageGUICreator(String title, PageSource<T> source, ItemConverter<T> converter) {
+        this(title, source, converter, Collections.emptyMap(), 4 * 9);
+    }
+
+    public PageGUICreator(String title, PageSource<T> source, ItemConverter<T> converter, Map<Integer, OrcItem> specialItems, int elementsPerPage) {
         this.title = title;
-        this.elements = new ArrayList<>(elements);
+        this.source = source;
         this.converter = converter;
         this.elementsPerPage = elementsPerPage;
         this.specialItems = specialItems;
     }
 
     public void show(Player p) {
-        List<OrcItem> items = elements.stream().map(converter::convert).collect(Collectors.toList());
-        if (items.isEmpty())
-            return;
-
-        int pages = (int) (Math.ceil((items.size() / (double) elementsPerPage) < 1 ? 1 : Math.ceil((double) items.size() / (double) elementsPerPage)));
+        View view = new View();
+        views.put(p.getUniqueId(), view);
+        view.open(p, 0);
+    }
 
-        invPages = new ArrayList<>(pages);
+    /**
+     * This method sets a listener that is called on the main thread whenever a page is
+     * shown to a player, e.g. to load additional data of the visible elements first.
+     *
+     * @param pageListener (BiConsumer) gets the player and the elements of the page
+     */
+    public void setPageListener(BiConsumer<Player, List<T>> pageListener) {
+        this.pageListener = pageListener;
+    }
 
-        for (int i = 1; i < pages + 1; i++) {
-            int start = i == 1 ? 0 : elementsPerPage * (i - 1);
-            int end = Math.min(items.size(), elementsPerPage * i);
-            List<OrcItem> page = items.subList(start, end);
-            InventoryPage invPage = new InventoryPage(title, i, pages);
+    /**
+     * This method converts an element again after its data changed. The item is replaced
+     * in the rendered pages of the player, and in place in the open inventory if the
+     * player is looking at it.
+     *
+     * @param player (Player) the viewer
+     * @param element (T) the changed element
+     */
+    public void update(Player player, T element) {
+        View view = views.get(player.getUniqueId());
+        if (view != null) view.update(player, element);
+    }
 
-            page.forEach(invPage::addItem);
-            specialItems.forEach(invPage::addItem);
+    public void reopen(Player player) {
+        player.closeInventory();
+        show(player);
+    }
 
-            invPages.add(invPage);
+    /**
+     * This class is the navigation state of one viewer.
+     */
+    private class View {
+
+        private final List<T> lastElements = new ArrayList<>();
+        private final Map<Integer, RenderedPage<T>> pages = new LinkedHashMap<>(MAX_CACHED_PAGES + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, RenderedPage<T>> eldest) {
+                return size() > MAX_CACHED_PAGES;
+            }
+        };
+        private boolean loading = false;
+        private RenderedPage<T> shownPage;
+        private Inventory shownInventory;
+
+        private void open(Player player, int index) {
+            RenderedPage<T> page = pages.get(index);
+            if (page != null) {
+                show(player, page);
+                return;
+            }
+
+            // The pages are loaded in order, as each page continues after the previous one.
+            if (loading || (index > lastElements.size())) return;
+
+            T last = (index == 0) ? null : lastElements.get(index - 1);
+
+            // One more element is loaded to check if there is a next page.
+            CompletableFuture<List<T>> future = StatsExecutor.getInstance().supply(player.getUniqueId(),
+                    () -> source.load(index * elementsPerPage, last, elementsPerPage + 1));
+            if (future == null) {
+                player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.STATS_ALREADY_LOADING));
+                return;
+            }
+            loading = true;
+
+            future.whenComplete((result, throwable) -> Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> {
+                loading = false;
+
+                if (throwable != null) {
+                    Logger.ERROR.log("Could not load page " + (index + 1) + " of \"" + title + "\":");
+                    throwable.printStackTrace();
+                    return;
+                }
+
+                if ((result == null) || !player.isOnline()) return;
+                if (result.isEmpty()) return;
+
+                show(player, render(index, result));
+            }));
         }
 
-        for (int i = 0; i < invPages.size(); i++) {
+        private RenderedPage<T> render(int index, List<T> elements) {
+            boolean hasNext = elements.size() > elementsPerPage;
+            List<T> pageElements = hasNext ? elements.subList(0, elementsPerPage) : elements;
+
+            if (!pageElements.isEmpty()) {
+                T last = pageElements.get(pageElements.size() - 1);
+                if (index < lastElements.size()) {
+                    lastElements.set(index, last);
+                } else {
+                    lastElements.add(last);
+                }
+            }
+
+            int pageCount = (source.size() < 0) ? -1 : Math.max(1, (int) Math.ceil((double) source.size() / elementsPerPage));
+            InventoryPage page = new InventoryPage(title, index + 1, pageCount,
+                    (index > 0) ? p -> open(p, index - 1) : null,
+                    hasNext ? p -> open(p, index + 1) : null);
+
+            pageElements.stream().map(converter::convert).forEach(page::addItem);
+            specialItems.forEach(page::addItem);
+
+            RenderedPage<T> renderedPage = new RenderedPage<>(page, new ArrayList<>(pageElements));
+            pages.put(index, renderedPage);
+            return renderedPage;
+        }
 
-            int beforeIndex = i == 0 ? invPages.size() - 1 : i - 1;
-            int nextIndex = i == invPages.size() - 1 ? 0 : i + 1;
+        private void show(Player player, RenderedPage<T> page) {
+            player.closeInventory();
+            shownPage = page;
+            shownInventory = page.inventoryPage().getInventory(player);
+            player.openInventory(shownInventory);
 
-            invPages.get(i).before = invPages.get(beforeIndex);
-            invPages.get(i).next = invPages.get(nextIndex);
+            if (pageListener != null) pageListener.accept(player, page.elements());
         }
 
-        if (p != null && p.isOnline())
-            p.openInventory(invPages.get(0).getInventory(p));
+        private void update(Player player, T element) {
+            for (RenderedPage<T> page : pages.values()) {
+                int slot = page.elements().indexOf(element);
+                if (slot < 0) continue;
+
+                OrcItem item = converter.convert(element);
+                page.inventoryPage().addItem(slot, item);
+
+                if ((page == shownPage) && (player.getOpenInventory().getTopInventory() == shownInventory)) {
+                    shownInventory.setItem(slot, item.getItemStack(player));
+                }
+            }
+        }
     }
 
-    public void reopen(Player player) {
-        player.closeInventory();
-        show(player);
+    private record RenderedPage<T>(InventoryPage inventoryPage, List<T> elements) {
     }
 }
@@ -0,0 +1,52 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.inventory.pages;
+
+import java.util.List;
+
+/**
+ * This interface provides the elements of a {@link PageGUICreator}. A page is only loaded
+ * when a player navigates to it. The loading runs off the main thread.
+ */
+@FunctionalInterface
+public interface PageSource<T> {
+
+    /**
+     * This method loads the elements of a page. The pages are loaded in order, so a
+     * database source can continue after the last element of the previous page (keyset
+     * pagination) instead of skipping an offset.
+     *
+     * @param offset (int) the amount of elements on the previous pages
+     * @param last the last element of the previous page or 'null' for the first page
+     * @param limit (int) the maximum amount of elements
+     * @return (List) the elements of the page
+     */
+    List<T> load(int offset, T last, int limit);
+
+    /**
+     * This method returns the total amount of elements, if it's known without an
+     * additional query.
+     *
+     * @return (int) the amount of elements or -1, if it's unknown
+     */
+    default int size() {
+        return -1;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.listener;
+
+import de.butzlabben.missilewars.game.regeneration.ArenaRegenerator;
+import de.butzlabben.missilewars.game.regeneration.RegenerableArena;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+
+import java.util.List;
+
+/**
+ * This listener records the modified chunk sections of the arenas that are restored
+ * in place (see {@link RegenerableArena}). It is registered once for all games, so the
+ * modifications are also recorded between the game phases.
+ * <p>
+ * Only the changes of the handled events are restored: placed, broken, exploded, moved,
+ * burnt, formed, spread and faded blocks, fluids, buckets, collapsing portals and the
+ * redstone states (powered blocks, dispensers and interacted blocks like levers or doors).
+ * Block changes of other plugins without an event are not recorded.
+ */
+public class ArenaRegenerationListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        mark(event.getLocation().getBlock());
+        mark(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        mark(event.getBlock());
+        mark(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        mark(event.getBlock(), event.getDirection());
+        markMoved(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        mark(event.getBlock(), event.getDirection());
+        markMoved(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFluidFlow(BlockFromToEvent event) {
+        mark(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockIgnite(BlockIgniteEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockSpread(BlockSpreadEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPhysics(BlockPhysicsEvent event) {
+        // A portal collapses block by block through physics updates, if a frame block is
+        // destroyed. The collapsing blocks can be outside of the recorded sections.
+        Block block = event.getBlock();
+        RegenerableArena arena = ArenaRegenerator.getInstance().getArena(block.getWorld());
+        if ((arena == null) || !arena.isInside(block)) return;
+
+        if (block.getType() == Material.NETHER_PORTAL) arena.mark(block);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockRedstone(BlockRedstoneEvent event) {
+        if (event.getOldCurrent() == event.getNewCurrent()) return;
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockDispense(BlockDispenseEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInteract(PlayerInteractEvent event) {
+        // Levers, buttons, doors, pressure plates, farmland etc. change their state.
+        if ((event.getAction() != Action.RIGHT_CLICK_BLOCK) && (event.getAction() != Action.PHYSICAL)) return;
+        if (event.getClickedBlock() == null) return;
+
+        mark(event.getClickedBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketEmpty(PlayerBucketEmptyEvent event) {
+        mark(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketFill(PlayerBucketFillEvent event) {
+        mark(event.getBlock());
+    }
+
+    private void mark(Block block) {
+        RegenerableArena arena = ArenaRegenerator.getInstance().getArena(block.getWorld());
+        if (arena == null) return;
+
+        arena.mark(block);
+    }
+
+    private void mark(Block block, BlockFace direction) {
+        RegenerableArena arena = ArenaRegenerator.getInstance().getArena(block.getWorld());
+        if (arena == null) return;
+
+        arena.mark(block);
+        arena.mark(block.getRelative(direction));
+        arena.mark(block.getRelative(direction.getOppositeFace()));
+    }
+
+    private void mark(List<Block> blocks) {
+        if (blocks.isEmpty()) return;
+
+        RegenerableArena arena = ArenaRegenerator.getInstance().getArena(blocks.get(0).getWorld());
+        if (arena == null) return;
+
+        for (Block block : blocks) {
+            arena.mark(block);
+        }
+    }
+
+    private void markMoved(List<Block> blocks, BlockFace direction) {
+        if (blocks.isEmpty()) return;
+
+        RegenerableArena arena = ArenaRegenerator.getInstance().getArena(blocks.get(0).getWorld());
+        if (arena == null) return;
+
+        // The blocks are moved by one block. The direction of the retract event differs
+        // between the server versions, so both neighbours are recorded.
+        for (Block block : blocks) {
+            arena.mark(block);
+            arena.mark(block.getRelative(direction));
+            arena.mark(block.getRelative(direction.getOppositeFace()));
+        }
+    }
+}
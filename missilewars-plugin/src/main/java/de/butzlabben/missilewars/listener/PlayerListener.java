@@ -25,12 +25,16 @@ import de.butzlabben.missilewars.events.PlayerArenaJoinEvent;
 import de.butzlabben.missilewars.events.PlayerArenaLeaveEvent;
 import de.butzlabben.missilewars.game.Game;
 import de.butzlabben.missilewars.game.GameManager;
+import de.butzlabben.missilewars.game.stats.PlayerDirectory;
 import de.butzlabben.missilewars.displays.MotdManager;
+import de.butzlabben.missilewars.player.PlayerRegion;
+import de.butzlabben.missilewars.player.PlayerRegionTracker;
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.FoodLevelChangeEvent;
@@ -53,7 +57,9 @@ public class PlayerListener implements Listener {
 
     @EventHandler
     public void onFoodLevelChange(FoodLevelChangeEvent event) {
-        Game game = getGame(event.getEntity().getLocation());
+        if (!(event.getEntity() instanceof Player)) return;
+
+        Game game = getGame((Player) event.getEntity());
         if (game == null) return;
 
         event.setCancelled(true);
@@ -61,7 +67,7 @@ public class PlayerListener implements Listener {
 
     @EventHandler
     public void onBlockPlace(BlockPlaceEvent event) {
-        Game game = getGame(event.getPlayer().getLocation());
+        Game game = getGame(event.getPlayer());
         if (game == null) return;
 
         if (event.getPlayer().getGameMode() != GameMode.CREATIVE) event.setBuild(false);
@@ -69,7 +75,7 @@ public class PlayerListener implements Listener {
 
     @EventHandler
     public void onDrop(PlayerDropItemEvent event) {
-        Game game = getGame(event.getPlayer().getLocation());
+        Game game = getGame(event.getPlayer());
         if (game == null) return;
 
         event.setCancelled(true);
@@ -77,7 +83,7 @@ public class PlayerListener implements Listener {
 
     @EventHandler
     public void onPickup(PlayerPickupItemEvent event) {
-        Game game = getGame(event.getPlayer().getLocation());
+        Game game = getGame(event.getPlayer());
         if (game == null) return;
 
         event.setCancelled(true);
@@ -85,7 +91,12 @@ public class PlayerListener implements Listener {
 
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
-        Game game = getGame(event.getPlayer().getLocation());
+        PlayerDirectory.getInstance().record(event.getPlayer());
+
+        PlayerRegion region = PlayerRegion.of(event.getPlayer().getLocation());
+        PlayerRegionTracker.getInstance().setRegion(event.getPlayer(), region);
+
+        Game game = region.getGame();
         if (game == null) return;
 
         Player player = event.getPlayer();
@@ -94,27 +105,37 @@ public class PlayerListener implements Listener {
 
     @EventHandler
     public void onQuit(PlayerQuitEvent event) {
-        Game game = getGame(event.getPlayer().getLocation());
+        Game game = getGame(event.getPlayer());
+        PlayerRegionTracker.getInstance().remove(event.getPlayer());
         if (game == null) return;
 
         Player player = event.getPlayer();
         game.teleportToFallbackSpawn(player);
     }
 
-    @EventHandler
+    // The region transitions fire the arena join and leave events, whose handlers change
+    // the games. They run at the last priority that may act on the event; MONITOR is only
+    // used for the passive region tracking (respawn and world change).
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onTeleport(PlayerTeleportEvent event) {
-        Location from = event.getFrom();
+        Player player = event.getPlayer();
         Location to = event.getTo();
-        Game gameFrom = getGame(from);
-        Game gameTo = getGame(to);
+        PlayerRegion oldRegion = PlayerRegionTracker.getInstance().getRegion(player);
+        if (oldRegion.isSameBlock(to)) return;
 
-        // same game:
-        if (gameFrom == gameTo) return;
+        PlayerRegion newRegion = PlayerRegion.of(to);
+        Game gameFrom = oldRegion.getGame();
+        Game gameTo = newRegion.getGame();
 
-        Player player = event.getPlayer();
+        // same game:
+        if (gameFrom == gameTo) {
+            PlayerRegionTracker.getInstance().setRegion(player, newRegion);
+            return;
+        }
 
-        // old game handling:
+        // old game handling (the listeners still see the old region):
         if (gameFrom != null) registerPlayerArenaLeaveEvent(player, gameFrom);
+        PlayerRegionTracker.getInstance().setRegion(player, newRegion);
 
         // new game handling (after a delay):
         if (gameTo == null) return;
@@ -126,20 +147,29 @@ public class PlayerListener implements Listener {
         }.runTaskLater(MissileWars.getInstance(), 2);
     }
 
-    @EventHandler
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onMove(PlayerMoveEvent event) {
-        Location from = event.getFrom();
+        Player player = event.getPlayer();
         Location to = event.getTo();
-        Game gameFrom = getGame(from);
-        Game gameTo = getGame(to);
+        PlayerRegion oldRegion = PlayerRegionTracker.getInstance().getRegion(player);
 
-        // same game:
-        if (gameFrom == gameTo) return;
+        // Only a rotation or a movement inside the block:
+        if (oldRegion.isSameBlock(to)) return;
 
-        Player player = event.getPlayer();
+        Location from = event.getFrom();
+        PlayerRegion newRegion = PlayerRegion.of(to);
+        Game gameFrom = oldRegion.getGame();
+        Game gameTo = newRegion.getGame();
+
+        // same game:
+        if (gameFrom == gameTo) {
+            PlayerRegionTracker.getInstance().setRegion(player, newRegion);
+            return;
+        }
 
-        // old game handling:
+        // old game handling (the listeners still see the old region):
         if (gameFrom != null) registerPlayerArenaLeaveEvent(player, gameFrom);
+        PlayerRegionTracker.getInstance().setRegion(player, newRegion);
 
         // new game handling (after a delay):
         if (gameTo == null) return;
@@ -151,6 +181,16 @@ public class PlayerListener implements Listener {
         }.runTaskLater(MissileWars.getInstance(), 2);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        PlayerRegionTracker.getInstance().setRegion(event.getPlayer(), PlayerRegion.of(event.getRespawnLocation()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        PlayerRegionTracker.getInstance().setRegion(event.getPlayer(), PlayerRegion.of(event.getPlayer().getLocation()));
+    }
+
     public PlayerArenaJoinEvent registerPlayerArenaJoinEvent(Player player, Game game) {
         PlayerArenaJoinEvent onJoinGame = new PlayerArenaJoinEvent(player, game);
         Bukkit.getPluginManager().callEvent(onJoinGame);
@@ -178,18 +218,16 @@ public class PlayerListener implements Listener {
     }
 
     /**
-     * This method gets the game based of the location. It's either inside
+     * This method gets the current game of the player. It's either inside
      * the game lobby (representing as an area) or inside the game arena
      * (representing as a world).
      *
-     * @param location (Location) of the player
+     * @param player (Player) the target player
      *
-     * @return the Game Object if existing for the location
+     * @return the Game Object if existing for the player location
      */
-    private Game getGame(Location location) {
-        if (GameManager.getInstance() == null) return null;
-
-        return GameManager.getInstance().getGame(location);
+    private Game getGame(Player player) {
+        return PlayerRegionTracker.getInstance().getGame(player);
     }
 
     private void logEventDebugMessage(Player player, Game game) {
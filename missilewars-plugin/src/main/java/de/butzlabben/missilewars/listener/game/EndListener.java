@@ -51,14 +51,14 @@ public class EndListener extends GameBoundListener {
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onRespawn(PlayerRespawnEvent event) {
-        if (!isInGameWorld(event.getPlayer().getLocation())) return;
+        if (!isInGameWorld(event.getPlayer())) return;
 
         event.setRespawnLocation(getGame().getArenaConfig().getSpectatorSpawn());
     }
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onDeath(PlayerDeathEvent event) {
-        if (!isInGameWorld(event.getEntity().getLocation())) return;
+        if (!isInGameWorld(event.getEntity())) return;
         
         Player player = event.getEntity();
         MWPlayer mwPlayer = getGame().getPlayer(player);
@@ -70,7 +70,7 @@ public class EndListener extends GameBoundListener {
     @EventHandler
     public void onInventoryOpen(InventoryOpenEvent event) {
         Player player = (Player) event.getPlayer();
-        if (!isInGameWorld(player.getLocation())) return;
+        if (!isInGameWorld(player)) return;
 
         // handling of MW inventories:
         if (event.getView().getTitle().equals(TeamSelectionMenu.getTitle())) return;
@@ -96,7 +96,7 @@ public class EndListener extends GameBoundListener {
         if (!(event.getWhoClicked() instanceof Player)) return;
 
         Player player = (Player) event.getWhoClicked();
-        if (!isInGameWorld(player.getLocation())) return;
+        if (!isInGameWorld(player)) return;
 
         // handling of MW inventories:
         if (event.getView().getTitle().equals(TeamSelectionMenu.getTitle())) {
@@ -109,7 +109,7 @@ public class EndListener extends GameBoundListener {
 
     @EventHandler
     public void onPlayerArenaJoin(PlayerArenaJoinEvent event) {
-        if (!getGame().isIn(event.getPlayer().getLocation())) return;
+        if (!isIn(event.getPlayer())) return;
         
         Player player = event.getPlayer();
 
@@ -157,7 +157,7 @@ public class EndListener extends GameBoundListener {
 
     @EventHandler
     public void onPlayerArenaLeave(PlayerArenaLeaveEvent event) {
-        if (!isInGameWorld(event.getPlayer().getLocation())) return;
+        if (!isInGameWorld(event.getPlayer())) return;
 
         Player player = event.getPlayer();
         MWPlayer mwPlayer = event.getGame().getPlayer(player);
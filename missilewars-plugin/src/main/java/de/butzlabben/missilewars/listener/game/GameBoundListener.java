@@ -21,10 +21,16 @@ package de.butzlabben.missilewars.listener.game;
 import de.butzlabben.missilewars.MissileWars;
 import de.butzlabben.missilewars.game.Game;
 import de.butzlabben.missilewars.player.MWPlayer;
+import de.butzlabben.missilewars.player.PlayerRegionTracker;
 import org.bukkit.*;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
 
+/**
+ * This is the base of the listeners of the game phases. A game holds the listener of its
+ * current phase. The listeners are not registered at Bukkit, the {@link GameEventRouter}
+ * passes only the events of their own game to them.
+ */
 public abstract class GameBoundListener implements Listener {
 
     private final Game game;
@@ -41,6 +47,36 @@ public abstract class GameBoundListener implements Listener {
         return game.getGameWorld().isWorld(location.getWorld());
     }
 
+    /**
+     * This method checks the cached region of the player, see {@link PlayerRegionTracker}.
+     *
+     * @param player (Player) the target player
+     * @return true, if the player is inside the Lobby-Area of this game
+     */
+    public boolean isInLobbyArea(Player player) {
+        return PlayerRegionTracker.getInstance().getRegion(player).isInLobbyArea(game);
+    }
+
+    /**
+     * This method checks the cached region of the player, see {@link PlayerRegionTracker}.
+     *
+     * @param player (Player) the target player
+     * @return true, if the player is in the game world of this game
+     */
+    public boolean isInGameWorld(Player player) {
+        return PlayerRegionTracker.getInstance().getRegion(player).isInGameWorld(game);
+    }
+
+    /**
+     * This method checks the cached region of the player, see {@link PlayerRegionTracker}.
+     *
+     * @param player (Player) the target player
+     * @return true, if the player is in the Lobby-Area or in the game world of this game
+     */
+    public boolean isIn(Player player) {
+        return PlayerRegionTracker.getInstance().getRegion(player).isIn(game);
+    }
+
     public Game getGame() {
         return game;
     }
@@ -0,0 +1,213 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.butzlabben.missilewars.listener.game;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.MissileWars;
+import de.butzlabben.missilewars.events.PlayerArenaJoinEvent;
+import de.butzlabben.missilewars.events.PlayerArenaLeaveEvent;
+import de.butzlabben.missilewars.game.Game;
+import de.butzlabben.missilewars.game.GameManager;
+import de.butzlabben.missilewars.player.PlayerRegionTracker;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.inventory.InventoryEvent;
+import org.bukkit.event.player.PlayerEvent;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * This listener is registered once for the whole plugin and forwards the events to the
+ * current phase listener ({@link LobbyListener}, {@link GameListener} or {@link EndListener})
+ * of the game the event belongs to.
+ * <p>
+ * The handler methods of the phase listeners are collected and bound to direct calls once
+ * (see {@link LambdaMetafactory}), so no reflection is used per event. For every event
+ * type, priority and 'ignoreCancelled' combination, one executor is registered at Bukkit. The
+ * game is looked up from the player region, the block or the entity of the event, so
+ * only the handlers of this one game are called. A phase switch of a game only replaces
+ * its listener object and doesn't change the Bukkit handler lists.
+ * <p>
+ * The block physics are the most frequent event of the server. They are not routed but
+ * handled directly by this listener, independent of the game phase.
+ */
+public class GameEventRouter implements Listener {
+
+    @Getter
+    private static final GameEventRouter instance = new GameEventRouter();
+
+    /**
+     * This method registers the executors for all handler methods of the phase listeners.
+     *
+     * @param phaseListeners (Class) the phase listener classes
+     */
+    @SafeVarargs
+    public final void register(Class<? extends GameBoundListener>... phaseListeners) {
+        Map<HandlerKey, Map<Class<?>, List<BoundHandler>>> handlers = new LinkedHashMap<>();
+
+        for (Class<? extends GameBoundListener> phaseListener : phaseListeners) {
+            for (Method method : phaseListener.getMethods()) {
+                EventHandler annotation = method.getAnnotation(EventHandler.class);
+                if (annotation == null) continue;
+                if ((method.getParameterCount() != 1) || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) continue;
+
+                BoundHandler handler = bind(method);
+                if (handler == null) continue;
+
+                Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+                HandlerKey key = new HandlerKey(eventClass, annotation.priority(), annotation.ignoreCancelled());
+                handlers.computeIfAbsent(key, k -> new HashMap<>())
+                        .computeIfAbsent(phaseListener, k -> new ArrayList<>())
+                        .add(handler);
+            }
+        }
+
+        handlers.forEach((key, methods) -> {
+            Map<Class<?>, BoundHandler[]> handlerArrays = new HashMap<>();
+            methods.forEach((phaseListener, list) -> handlerArrays.put(phaseListener, list.toArray(new BoundHandler[0])));
+
+            Bukkit.getPluginManager().registerEvent(key.eventClass(), this, key.priority(),
+                    (listener, event) -> dispatch(key.eventClass(), handlerArrays, event),
+                    MissileWars.getInstance(), key.ignoreCancelled());
+        });
+        Bukkit.getPluginManager().registerEvents(this, MissileWars.getInstance());
+
+        Logger.DEBUG.log("Registered " + handlers.size() + " game event executors.");
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPhysics(BlockPhysicsEvent event) {
+        Block block = event.getBlock();
+        Game game = GameManager.getInstance().getGame(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        if (game == null) return;
+
+        game.checkPortalUpdate(block);
+    }
+
+    /**
+     * This method binds a handler method to a direct call.
+     *
+     * @param method (Method) the handler method of a phase listener
+     * @return (BoundHandler) the bound handler or 'null', if the method can't be bound
+     */
+    private static BoundHandler bind(Method method) {
+        if (method.getReturnType() != void.class) return null;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle target = lookup.unreflect(method);
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "handle", MethodType.methodType(Handler.class),
+                    MethodType.methodType(void.class, GameBoundListener.class, Event.class), target, target.type());
+            return new BoundHandler(method.getName(), (Handler) callSite.getTarget().invoke());
+        } catch (Throwable throwable) {
+            Logger.ERROR.log("Could not bind the game event handler " + method.getDeclaringClass().getSimpleName() + "#" + method.getName() + ".");
+            throwable.printStackTrace();
+            return null;
+        }
+    }
+
+    private void dispatch(Class<? extends Event> eventClass, Map<Class<?>, BoundHandler[]> handlers, Event event) {
+        // Sub-events (e.g. EntityDamageByEntityEvent) share the handler list of their parent.
+        if (!eventClass.isInstance(event)) return;
+
+        Game game = getGame(event);
+        if (game == null) return;
+
+        GameBoundListener listener = game.getListener();
+        if (listener == null) return;
+
+        BoundHandler[] listenerHandlers = handlers.get(listener.getClass());
+        if (listenerHandlers == null) return;
+
+        for (BoundHandler handler : listenerHandlers) {
+            try {
+                handler.handler().handle(listener, event);
+            } catch (RuntimeException exception) {
+                Logger.ERROR.log("Could not pass " + event.getEventName() + " to " + handler.name() + " of the game \""
+                        + game.getGameConfig().getName() + "\".");
+                exception.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * This method determines the game to which the event belongs.
+     *
+     * @param event (Event) the target event
+     * @return (Game) the game or 'null'
+     */
+    private static Game getGame(Event event) {
+        if (event instanceof PlayerArenaJoinEvent joinEvent) return joinEvent.getGame();
+        if (event instanceof PlayerArenaLeaveEvent leaveEvent) return leaveEvent.getGame();
+
+        if (event instanceof PlayerEvent playerEvent) {
+            return PlayerRegionTracker.getInstance().getGame(playerEvent.getPlayer());
+        }
+
+        if (event instanceof InventoryEvent inventoryEvent) {
+            HumanEntity human = inventoryEvent.getView().getPlayer();
+            return (human instanceof Player player) ? PlayerRegionTracker.getInstance().getGame(player) : null;
+        }
+
+        if (event instanceof BlockEvent blockEvent) {
+            Block block = blockEvent.getBlock();
+            return GameManager.getInstance().getGame(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        }
+
+        if (event instanceof EntityExplodeEvent explodeEvent) {
+            return GameManager.getInstance().getGame(explodeEvent.getLocation());
+        }
+
+        if (event instanceof EntityEvent entityEvent) {
+            Entity entity = entityEvent.getEntity();
+            if (entity instanceof Player player) return PlayerRegionTracker.getInstance().getGame(player);
+            return GameManager.getInstance().getGame(entity.getLocation());
+        }
+
+        return null;
+    }
+
+    @FunctionalInterface
+    interface Handler {
+        void handle(GameBoundListener listener, Event event);
+    }
+
+    private record BoundHandler(String name, Handler handler) {
+    }
+
+    private record HandlerKey(Class<? extends Event> eventClass, EventPriority priority, boolean ignoreCancelled) {
+    }
+}
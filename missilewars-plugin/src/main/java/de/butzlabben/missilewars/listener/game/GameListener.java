@@ -37,6 +37,7 @@ import de.butzlabben.missilewars.menus.inventory.TeamSelectionMenu;
 import de.butzlabben.missilewars.player.MWPlayer;
 import de.butzlabben.missilewars.util.MaterialHelper;
 import org.bukkit.*;
+import org.bukkit.block.Block;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Projectile;
@@ -45,6 +46,8 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
 import org.bukkit.event.entity.*;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryOpenEvent;
@@ -75,9 +78,28 @@ public class GameListener extends GameBoundListener {
         event.blockList().removeIf(b -> b.getType() == Material.NETHER_PORTAL);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPortalExplode(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            if (getGame().checkPortalBreak(block)) return;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPortalBlockExplode(BlockExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            if (getGame().checkPortalBreak(block)) return;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPortalBreak(BlockBreakEvent event) {
+        getGame().checkPortalBreak(event.getBlock());
+    }
+
     @EventHandler
     public void onInteract(PlayerInteractEvent event) {
-        if (!isInGameWorld(event.getPlayer().getLocation())) return;
+        if (!isInGameWorld(event.getPlayer())) return;
         
         Player player = event.getPlayer();
         if (player.getGameMode() == GameMode.CREATIVE) return;
@@ -153,7 +175,7 @@ public class GameListener extends GameBoundListener {
         if (!(event.getEntity() instanceof Player)) return;
 
         Player player = (Player) event.getEntity();
-        if (!isInGameWorld(player.getLocation())) return;
+        if (!isInGameWorld(player)) return;
 
         Player shooter;
         if (event.getDamager() instanceof Projectile) {
@@ -186,7 +208,7 @@ public class GameListener extends GameBoundListener {
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onRespawn(PlayerRespawnEvent event) {
-        if (!isInGameWorld(event.getPlayer().getLocation())) return;
+        if (!isInGameWorld(event.getPlayer())) return;
 
         Player player = event.getPlayer();
         Team team = getGame().getPlayer(player).getTeam();
@@ -210,7 +232,7 @@ public class GameListener extends GameBoundListener {
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onDeath(PlayerDeathEvent event) {
-        if (!isInGameWorld(event.getEntity().getLocation())) return;
+        if (!isInGameWorld(event.getEntity())) return;
 
         Player player = event.getEntity();
         MWPlayer mwPlayer = getGame().getPlayer(player);
@@ -242,7 +264,7 @@ public class GameListener extends GameBoundListener {
     @EventHandler
     public void onInventoryOpen(InventoryOpenEvent event) {
         Player player = (Player) event.getPlayer();
-        if (!isInGameWorld(player.getLocation())) return;
+        if (!isInGameWorld(player)) return;
 
         // handling of MW inventories:
         if (event.getView().getTitle().equals(TeamSelectionMenu.getTitle())) return;
@@ -276,7 +298,7 @@ public class GameListener extends GameBoundListener {
         if (!(event.getWhoClicked() instanceof Player)) return;
 
         Player player = (Player) event.getWhoClicked();
-        if (!isInGameWorld(player.getLocation())) return;
+        if (!isInGameWorld(player)) return;
 
         // handling of MW inventories:
         if (event.getView().getTitle().equals(TeamSelectionMenu.getTitle())) {
@@ -331,7 +353,7 @@ public class GameListener extends GameBoundListener {
 
     @EventHandler
     public void onPlayerArenaJoin(PlayerArenaJoinEvent event) {
-        if (!getGame().isIn(event.getPlayer().getLocation())) return;
+        if (!isIn(event.getPlayer())) return;
 
         Player player = event.getPlayer();
 
@@ -387,7 +409,7 @@ public class GameListener extends GameBoundListener {
 
     @EventHandler
     public void onPlayerArenaLeave(PlayerArenaLeaveEvent event) {
-        if (!isInGameWorld(event.getPlayer().getLocation())) return;
+        if (!isInGameWorld(event.getPlayer())) return;
 
         Player player = event.getPlayer();
         MWPlayer mwPlayer = event.getGame().getPlayer(player);
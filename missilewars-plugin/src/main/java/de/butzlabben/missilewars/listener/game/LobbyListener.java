@@ -52,7 +52,7 @@ public class LobbyListener extends GameBoundListener {
 
     @EventHandler
     public void onInteract(PlayerInteractEvent event) {
-        if (!isInLobbyArea(event.getPlayer().getLocation())) return;
+        if (!isInLobbyArea(event.getPlayer())) return;
 
         Player player = event.getPlayer();
         if (player.getGameMode() == GameMode.CREATIVE) return;
@@ -93,14 +93,14 @@ public class LobbyListener extends GameBoundListener {
         if (!(event.getEntity() instanceof Player)) return;
 
         Player player = (Player) event.getEntity();
-        if (!isInLobbyArea(player.getLocation())) return;
+        if (!isInLobbyArea(player)) return;
 
         event.setCancelled(true);
     }
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onRespawn(PlayerRespawnEvent event) {
-        if (!isInLobbyArea(event.getPlayer().getLocation())) return;
+        if (!isInLobbyArea(event.getPlayer())) return;
 
         event.setRespawnLocation(getGame().getGameConfig().getLobbyConfig().getSpawnPoint());
     }
@@ -108,7 +108,7 @@ public class LobbyListener extends GameBoundListener {
     @EventHandler
     public void onInventoryOpen(InventoryOpenEvent event) {
         Player player = (Player) event.getPlayer();
-        if (!isInLobbyArea(player.getLocation())) return;
+        if (!isInLobbyArea(player)) return;
         
         // handling of MW inventories:
         if (event.getView().getTitle().equals(TeamSelectionMenu.getTitle()) || 
@@ -135,7 +135,7 @@ public class LobbyListener extends GameBoundListener {
         if (!(event.getWhoClicked() instanceof Player)) return;
 
         Player player = (Player) event.getWhoClicked();
-        if (!isInLobbyArea(player.getLocation())) return;
+        if (!isInLobbyArea(player)) return;
         
         // handling of MW inventories:
         if (event.getView().getTitle().equals(TeamSelectionMenu.getTitle()) || 
@@ -149,7 +149,7 @@ public class LobbyListener extends GameBoundListener {
     
     @EventHandler
     public void onPlayerSwapHandItems(PlayerSwapHandItemsEvent event) {
-        if (!isInLobbyArea(event.getPlayer().getLocation())) return;
+        if (!isInLobbyArea(event.getPlayer())) return;
         
         Player player = event.getPlayer();
         
@@ -159,7 +159,7 @@ public class LobbyListener extends GameBoundListener {
     
     @EventHandler
     public void onPlayerArenaJoin(PlayerArenaJoinEvent event) {
-        if (!isInLobbyArea(event.getPlayer().getLocation())) return;
+        if (!isInLobbyArea(event.getPlayer())) return;
         
         Player player = event.getPlayer();
         
@@ -181,7 +181,7 @@ public class LobbyListener extends GameBoundListener {
 
     @EventHandler
     public void onPlayerArenaLeave(PlayerArenaLeaveEvent event) {
-        if (!isInLobbyArea(event.getPlayer().getLocation())) return;
+        if (!isInLobbyArea(event.getPlayer())) return;
 
         Player player = event.getPlayer();
         MWPlayer mwPlayer = event.getGame().getPlayer(player);
@@ -0,0 +1,103 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.butzlabben.missilewars.player;
+
+import de.butzlabben.missilewars.game.Game;
+import de.butzlabben.missilewars.game.GameManager;
+import de.butzlabben.missilewars.game.enums.PlayerZone;
+import de.butzlabben.missilewars.util.geometry.GameArea;
+import lombok.Getter;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.UUID;
+
+/**
+ * This class is the (immutable) game and zone of a player at a block position.
+ */
+@Getter
+public class PlayerRegion {
+
+    private final UUID worldId;
+    private final int blockX, blockY, blockZ;
+    private final Game game;
+    private final PlayerZone zone;
+
+    private PlayerRegion(UUID worldId, int blockX, int blockY, int blockZ, Game game, PlayerZone zone) {
+        this.worldId = worldId;
+        this.blockX = blockX;
+        this.blockY = blockY;
+        this.blockZ = blockZ;
+        this.game = game;
+        this.zone = zone;
+    }
+
+    /**
+     * This method determines the game and zone of the location.
+     *
+     * @param location (Location) the target location
+     * @return (PlayerRegion) the region of the location
+     */
+    public static PlayerRegion of(Location location) {
+        World world = location.getWorld();
+        Game game = GameManager.getInstance().getGame(location);
+
+        return new PlayerRegion(world == null ? null : world.getUID(), location.getBlockX(), location.getBlockY(),
+                location.getBlockZ(), game, getZone(game, location));
+    }
+
+    private static PlayerZone getZone(Game game, Location location) {
+        if (game == null) return PlayerZone.OUTSIDE;
+        if (game.isInLobbyArea(location)) return PlayerZone.LOBBY;
+        if (!game.isInGameWorld(location)) return PlayerZone.OUTSIDE;
+
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+
+        GameArea innerGameArea = game.getInnerGameArea();
+        if ((innerGameArea != null) && innerGameArea.contains(x, y, z)) return PlayerZone.INNER_ARENA;
+        if (game.getGameArea().contains(x, y, z)) return PlayerZone.ARENA;
+        return PlayerZone.GAME_WORLD;
+    }
+
+    /**
+     * This method checks if the location is still at the block position of this region.
+     *
+     * @param location (Location) the target location
+     * @return true, if the block and the world are the same
+     */
+    public boolean isSameBlock(Location location) {
+        if ((location.getBlockX() != blockX) || (location.getBlockY() != blockY) || (location.getBlockZ() != blockZ)) return false;
+
+        World world = location.getWorld();
+        return (world != null) && world.getUID().equals(worldId);
+    }
+
+    public boolean isIn(Game game) {
+        return (this.game == game) && (zone != PlayerZone.OUTSIDE);
+    }
+
+    public boolean isInLobbyArea(Game game) {
+        return (this.game == game) && (zone == PlayerZone.LOBBY);
+    }
+
+    public boolean isInGameWorld(Game game) {
+        return (this.game == game) && zone.isInGameWorld();
+    }
+}
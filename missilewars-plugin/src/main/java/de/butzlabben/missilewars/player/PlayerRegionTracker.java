@@ -0,0 +1,80 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package de.butzlabben.missilewars.player;
+
+import de.butzlabben.missilewars.game.Game;
+import de.butzlabben.missilewars.game.enums.PlayerZone;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps the current game and zone of every online player, so that the
+ * listeners don't have to determine them from the location again for every event.
+ * <p>
+ * The region is updated by the {@link de.butzlabben.missilewars.listener.PlayerListener}
+ * when the player changes the block, is teleported, respawns or changes the world. When
+ * the games change, all regions are determined again.
+ */
+public class PlayerRegionTracker {
+
+    @Getter
+    private static final PlayerRegionTracker instance = new PlayerRegionTracker();
+
+    private final Map<UUID, PlayerRegion> regions = new ConcurrentHashMap<>();
+
+    public PlayerRegion getRegion(Player player) {
+        PlayerRegion region = regions.get(player.getUniqueId());
+        if (region != null) return region;
+
+        region = PlayerRegion.of(player.getLocation());
+        regions.put(player.getUniqueId(), region);
+        return region;
+    }
+
+    public void setRegion(Player player, PlayerRegion region) {
+        regions.put(player.getUniqueId(), region);
+    }
+
+    public Game getGame(Player player) {
+        return getRegion(player).getGame();
+    }
+
+    public PlayerZone getZone(Player player) {
+        return getRegion(player).getZone();
+    }
+
+    public void remove(Player player) {
+        regions.remove(player.getUniqueId());
+    }
+
+    /**
+     * This method determines the regions of all online players again. No events are
+     * called for it.
+     */
+    public void refreshAll() {
+        regions.clear();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            regions.put(player.getUniqueId(), PlayerRegion.of(player.getLocation()));
+        }
+    }
+}
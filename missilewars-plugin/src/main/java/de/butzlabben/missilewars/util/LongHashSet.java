@@ -0,0 +1,187 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * This class is a small hash set for primitive long values (open addressing with
+ * linear probing). It avoids the boxing of a HashSet&lt;Long&gt;, so that lookups
+ * in high-frequency event handlers don't create any objects.
+ * <p>
+ * The class is not thread-safe.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] table;
+    private boolean containsEmpty;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        table = new long[tableSizeFor(expectedSize)];
+    }
+
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmpty) return false;
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) return false;
+            index = (index + 1) & mask;
+        }
+
+        table[index] = value;
+        size++;
+        if (size > table.length * LOAD_FACTOR) rehash(table.length << 1);
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) return containsEmpty;
+
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        long current;
+        while ((current = table[index]) != EMPTY) {
+            if (current == value) return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsEmpty) return false;
+            containsEmpty = false;
+            size--;
+            return true;
+        }
+
+        int mask = table.length - 1;
+        int index = hash(value) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                table[index] = EMPTY;
+                size--;
+                closeGap(index, mask);
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public void forEach(LongConsumer consumer) {
+        if (containsEmpty) consumer.accept(EMPTY);
+        for (long value : table) {
+            if (value != EMPTY) consumer.accept(value);
+        }
+    }
+
+    public long[] toArray() {
+        long[] values = new long[size];
+        int i = 0;
+        if (containsEmpty) values[i++] = EMPTY;
+        for (long value : table) {
+            if (value != EMPTY) values[i++] = value;
+        }
+        return values;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        containsEmpty = false;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * This method moves the following entries of the probe sequence back after an
+     * entry was removed, so that they can still be found.
+     */
+    private void closeGap(int gap, int mask) {
+        int index = (gap + 1) & mask;
+        long current;
+        while ((current = table[index]) != EMPTY) {
+            int home = hash(current) & mask;
+            // Is the home slot of the entry cyclically outside of (gap, index]?
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                table[gap] = current;
+                table[index] = EMPTY;
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void rehash(int newLength) {
+        long[] oldTable = table;
+        table = new long[newLength];
+        int mask = newLength - 1;
+
+        for (long value : oldTable) {
+            if (value == EMPTY) continue;
+
+            int index = hash(value) & mask;
+            while (table[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            table[index] = value;
+        }
+    }
+
+    private static int hash(long value) {
+        // MurmurHash3 finalizer
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int size = 16;
+        while (size * LOAD_FACTOR < expectedSize) {
+            size <<= 1;
+        }
+        return size;
+    }
+}
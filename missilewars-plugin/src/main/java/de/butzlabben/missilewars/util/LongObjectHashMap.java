@@ -0,0 +1,143 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package de.butzlabben.missilewars.util;
+
+/**
+ * This class is a small hash map with primitive long keys (open addressing with linear
+ * probing), the counterpart of {@link LongHashSet}. A lookup doesn't box the key, so it
+ * can be used in high-frequency event handlers.
+ * <p>
+ * Entries can't be removed. The class is not thread-safe.
+ *
+ * @param <V> the value type
+ */
+public class LongObjectHashMap<V> {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] keys;
+    private Object[] values;
+    private V emptyKeyValue;
+    private boolean containsEmptyKey;
+    private int size;
+
+    public LongObjectHashMap() {
+        keys = new long[16];
+        values = new Object[16];
+    }
+
+    public V put(long key, V value) {
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+            if (!containsEmptyKey) size++;
+            containsEmptyKey = true;
+            emptyKeyValue = value;
+            return previous;
+        }
+
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                V previous = valueAt(index);
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) rehash(keys.length << 1);
+        return null;
+    }
+
+    public V get(long key) {
+        if (key == EMPTY) return emptyKeyValue;
+
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        long current;
+        while ((current = keys[index]) != EMPTY) {
+            if (current == key) return valueAt(index);
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * This method returns a copy of all keys, e.g. to iterate the entries with
+     * {@link #get(long)}.
+     *
+     * @return (long[]) the keys in no particular order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int i = 0;
+        if (containsEmptyKey) result[i++] = EMPTY;
+        for (long key : keys) {
+            if (key != EMPTY) result[i++] = key;
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    private void rehash(int newLength) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[newLength];
+        values = new Object[newLength];
+        int mask = newLength - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+
+            int index = hash(oldKeys[i]) & mask;
+            while (keys[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+
+    private static int hash(long value) {
+        // MurmurHash3 finalizer
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.util.database;
+
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.configuration.Config;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a small bounded pool of MySQL connections.
+ * <p>
+ * A connection is borrowed with {@link #getConnection()} and handed back to the pool by
+ * closing it, so it's used with try-with-resources. The statements are prepared on the
+ * borrowed connection and must be closed as well. The MySQL driver caches the prepared
+ * statements per connection, so preparing the same SQL again is cheap.
+ * <p>
+ * An idle connection is only validated on borrow if it wasn't used for a while. The usual
+ * borrow doesn't need a round trip to the server. A connection that failed with a
+ * connection error is discarded instead of being handed back.
+ */
+public class ConnectionPool {
+
+    private static volatile ConnectionPool instance;
+
+    private final String url;
+    private final Properties properties;
+    private final int maxSize;
+    private final long connectionTimeout;
+    private final long validationInterval;
+    private final long maxLifetime;
+
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed = false;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder validated = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+
+    private ConnectionPool() {
+        url = "jdbc:mysql://" + Config.getHost() + ":" + Config.getPort() + "/" + Config.getDatabase();
+        maxSize = Math.max(1, Config.getPoolMaxSize());
+        connectionTimeout = Math.max(0, Config.getPoolConnectionTimeout());
+        validationInterval = Math.max(0, Config.getPoolValidationInterval());
+        maxLifetime = Math.max(0, Config.getPoolMaxLifetime());
+        permits = new Semaphore(maxSize, true);
+
+        properties = new Properties();
+        properties.setProperty("user", Config.getUser());
+        properties.setProperty("password", Config.getPassword());
+        properties.setProperty("connectTimeout", String.valueOf(connectionTimeout));
+        properties.setProperty("tcpKeepAlive", "true");
+        properties.setProperty("useServerPrepStmts", "true");
+        properties.setProperty("cachePrepStmts", "true");
+        properties.setProperty("prepStmtCacheSize", String.valueOf(Config.getPoolStatementCacheSize()));
+        properties.setProperty("prepStmtCacheSqlLimit", "2048");
+    }
+
+    /**
+     * This method returns the connection pool. It is created with the current MySQL
+     * configuration on the first call.
+     *
+     * @return (ConnectionPool) the connection pool
+     */
+    public static ConnectionPool getInstance() {
+        ConnectionPool pool = instance;
+        if (pool != null) return pool;
+
+        synchronized (ConnectionPool.class) {
+            if (instance == null) instance = new ConnectionPool();
+            return instance;
+        }
+    }
+
+    /**
+     * This method closes the connection pool, if it was created. The connections that are
+     * borrowed at the moment are closed when they are handed back.
+     */
+    public static void shutdown() {
+        synchronized (ConnectionPool.class) {
+            if (instance == null) return;
+
+            instance.close();
+            instance = null;
+        }
+    }
+
+    /**
+     * This method borrows a connection from the pool. If all connections are in use, it
+     * waits for the configured connection timeout.
+     *
+     * @return (Connection) the borrowed connection; it must be closed after use
+     * @throws SQLException if no connection could be borrowed
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) throw new SQLException("The connection pool is closed");
+
+        long startTime = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(connectionTimeout, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTimeoutException("No database connection was available after " + connectionTimeout + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        waitTime.add(System.nanoTime() - startTime);
+
+        try {
+            IdleConnection idleConnection = takeIdleConnection();
+            Connection connection;
+            long creationTime;
+            if (idleConnection != null) {
+                connection = idleConnection.connection();
+                creationTime = idleConnection.creationTime();
+            } else {
+                connection = createConnection();
+                creationTime = System.currentTimeMillis();
+            }
+
+            borrowed.increment();
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new PooledConnectionHandler(connection, creationTime));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private IdleConnection takeIdleConnection() {
+        IdleConnection idleConnection;
+        while ((idleConnection = idleConnections.pollFirst()) != null) {
+            long now = System.currentTimeMillis();
+
+            if ((maxLifetime > 0) && (now - idleConnection.creationTime() >= maxLifetime)) {
+                discard(idleConnection.connection());
+                continue;
+            }
+
+            if (now - idleConnection.lastUsed() >= validationInterval) {
+                validated.increment();
+                if (!isValid(idleConnection.connection())) {
+                    Logger.DEBUG.log("[MySQL] Discarded an idle connection that is no longer valid.");
+                    discard(idleConnection.connection());
+                    continue;
+                }
+            }
+
+            return idleConnection;
+        }
+        return null;
+    }
+
+    private Connection createConnection() throws SQLException {
+        loadDriver();
+        Connection connection = DriverManager.getConnection(url, properties);
+        created.increment();
+        Logger.DEBUG.log("[MySQL] Opened a new connection (" + (maxSize - permits.availablePermits()) + "/" + maxSize + " in use).");
+        return connection;
+    }
+
+    private void loadDriver() throws SQLException {
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            try {
+                Class.forName("com.mysql.jdbc.Driver");
+            } catch (ClassNotFoundException e1) {
+                Logger.ERROR.log("[MySQL] §cDrivers are not working properly");
+                throw new SQLException("No MySQL driver found", e1);
+            }
+        }
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(5);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(Connection connection, long creationTime, boolean broken) {
+        try {
+            boolean reusable = !broken && !closed
+                    && ((maxLifetime <= 0) || (System.currentTimeMillis() - creationTime < maxLifetime));
+
+            if (reusable) {
+                try {
+                    if (connection.isClosed()) {
+                        reusable = false;
+                    } else if (!connection.getAutoCommit()) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                } catch (SQLException e) {
+                    reusable = false;
+                }
+            }
+
+            if (!reusable) {
+                discard(connection);
+                return;
+            }
+
+            idleConnections.offerFirst(new IdleConnection(connection, creationTime, System.currentTimeMillis()));
+            // The pool could have been closed in the meantime.
+            if (closed) closeIdleConnections();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(Connection connection) {
+        discarded.increment();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private void closeIdleConnections() {
+        IdleConnection idleConnection;
+        while ((idleConnection = idleConnections.pollFirst()) != null) {
+            try {
+                idleConnection.connection().close();
+            } catch (SQLException e) {
+                Logger.ERROR.log("[MySQL] Connection could not be closed");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void close() {
+        closed = true;
+        closeIdleConnections();
+        Logger.DEBUG.log("[MySQL] Closed the connection pool. " + getMetrics());
+    }
+
+    /**
+     * This method returns a snapshot of the pool metrics.
+     *
+     * @return (PoolMetrics) the current metrics
+     */
+    public PoolMetrics getMetrics() {
+        long borrowCount = borrowed.sum();
+        double averageWait = (borrowCount == 0) ? 0 : waitTime.sum() / 1_000_000d / borrowCount;
+        return new PoolMetrics(maxSize, maxSize - permits.availablePermits(), idleConnections.size(),
+                created.sum(), borrowCount, validated.sum(), discarded.sum(), timeouts.sum(), averageWait);
+    }
+
+    private static boolean isConnectionError(Throwable throwable) {
+        if (throwable instanceof SQLNonTransientConnectionException) return true;
+        if (!(throwable instanceof SQLException sqlException)) return false;
+
+        // SQL state class 08: connection exception
+        String sqlState = sqlException.getSQLState();
+        return (sqlState != null) && sqlState.startsWith("08");
+    }
+
+    private record IdleConnection(Connection connection, long creationTime, long lastUsed) {
+    }
+
+    /**
+     * This handler forwards all calls to the physical connection, except 'close()' which
+     * hands the connection back to the pool.
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+        private final long creationTime;
+        private boolean released = false;
+        private boolean broken = false;
+
+        PooledConnectionHandler(Connection connection, long creationTime) {
+            this.connection = connection;
+            this.creationTime = creationTime;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(connection, creationTime, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + connection + "]";
+                default:
+                    break;
+            }
+
+            if (released) throw new SQLException("The connection was already handed back to the pool");
+
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                if (isConnectionError(e.getCause())) broken = true;
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.util.database;
+
+/**
+ * This record is a snapshot of the metrics of the {@link ConnectionPool}.
+ *
+ * @param maxSize the maximum amount of connections
+ * @param active the amount of borrowed connections
+ * @param idle the amount of idle connections
+ * @param created the amount of opened connections since the start
+ * @param borrowed the amount of borrows since the start
+ * @param validated the amount of validations of idle connections
+ * @param discarded the amount of discarded connections
+ * @param timeouts the amount of borrows that timed out
+ * @param averageWaitMillis the average time a borrow waited for a free connection
+ */
+public record PoolMetrics(int maxSize, int active, int idle, long created, long borrowed, long validated,
+                          long discarded, long timeouts, double averageWaitMillis) {
+
+    @Override
+    public String toString() {
+        return "Connections: " + active + " active, " + idle + " idle, " + maxSize + " max | Opened: " + created
+                + " | Borrowed: " + borrowed + " | Validated: " + validated + " | Discarded: " + discarded
+                + " | Timeouts: " + timeouts + " | Avg. wait: " + String.format("%.2f", averageWaitMillis) + " ms";
+    }
+}
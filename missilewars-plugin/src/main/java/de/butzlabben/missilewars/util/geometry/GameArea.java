@@ -153,6 +153,16 @@ public class GameArea {
         }
     }
 
+    /**
+     * This method checks if a block position is within the area. The world is not
+     * checked here.
+     *
+     * @return true, if the position is inside
+     */
+    public boolean contains(int x, int y, int z) {
+        return (x >= minX) && (x <= maxX) && (y >= minY) && (y <= maxY) && (z >= minZ) && (z <= maxZ);
+    }
+
     public AreaConfig getAreaConfiguration() {
         return new AreaConfig(position1.getBlockX(), position1.getBlockY(), position1.getBlockZ(),
                 position2.getBlockX(), position2.getBlockY(), position2.getBlockZ());
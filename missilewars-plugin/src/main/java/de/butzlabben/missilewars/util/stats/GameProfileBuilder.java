@@ -23,16 +23,21 @@ import com.mojang.authlib.GameProfile;
 import com.mojang.authlib.properties.Property;
 import com.mojang.authlib.properties.PropertyMap;
 import com.mojang.util.UUIDTypeAdapter;
-import lombok.Getter;
+import de.butzlabben.missilewars.MissileWars;
+import de.butzlabben.missilewars.configuration.Config;
 import org.yaml.snakeyaml.external.biz.base64Coder.Base64Coder;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Butzlabben
@@ -44,30 +49,60 @@ public class GameProfileBuilder {
             .registerTypeAdapter(UUID.class, new UUIDTypeAdapter())
             .registerTypeAdapter(GameProfile.class, new GameProfileSerializer())
             .registerTypeAdapter(PropertyMap.class, new PropertyMap.Serializer()).create();
-    @Getter
-    private static final Map<UUID, CachedProfile> cache = new HashMap<>();
-    private static final Object sync = new Object();
-    private static long cacheTime = -1L;
+    private static final String CACHE_FILE = "profile-cache.jsonl.gz";
+    private static ProfileCache cache;
+
+    /**
+     * This method returns the profile cache. It's created on the first use and filled
+     * with the profiles of the cache file.
+     *
+     * @return (ProfileCache) the cache
+     */
+    public static synchronized ProfileCache getCache() {
+        if (cache == null) {
+            cache = new ProfileCache(GameProfileBuilder::fetchFromSessionServer, gson, Math.max(1, Config.getProfileCacheMaxEntries()),
+                    TimeUnit.SECONDS.toMillis(Config.getProfileCacheTtl()));
+            cache.load(getCacheFile());
+        }
+        return cache;
+    }
+
+    /**
+     * This method saves the profile cache to its file, if it was used.
+     */
+    public static synchronized void saveCache() {
+        if (cache == null) return;
+
+        cache.save(getCacheFile());
+    }
+
+    private static File getCacheFile() {
+        return new File(MissileWars.getInstance().getDataFolder(), CACHE_FILE);
+    }
 
     public static GameProfile fetch(UUID uuid) throws IOException {
         return fetch(uuid, false);
     }
 
     public static GameProfile fetch(UUID uuid, boolean forceNew) throws IOException {
-        if (!forceNew && cache.containsKey(uuid) && cache.get(uuid).isValid()) {
-            return cache.get(uuid).profile;
-        }
+        if (forceNew) return getCache().fetch(uuid);
+        return getCache().get(uuid);
+    }
 
+    private static GameProfile fetchFromSessionServer(UUID uuid) throws IOException {
         String json = getText(String.format("https://sessionserver.mojang.com/session/minecraft/profile/%s?unsigned=false",
                 UUIDTypeAdapter.fromUUID(uuid)));
 
+        GameProfile profile;
         try {
-            GameProfile result = gson.fromJson(json, GameProfile.class);
-            cache.put(uuid, new CachedProfile(result));
-            return result;
+            profile = gson.fromJson(json, GameProfile.class);
         } catch (Exception exception) {
             throw new IOException("Could not read response: " + json);
         }
+
+        // The session server answers without content for unknown players.
+        if (profile == null) throw new FileNotFoundException("Unknown player " + uuid);
+        return profile;
     }
 
     public static GameProfile getProfile(UUID uuid, String name, String skin) {
@@ -95,26 +130,21 @@ public class GameProfileBuilder {
         return profile;
     }
 
-    public static void setCacheTime(long time) {
-        cacheTime = time;
-    }
-
     public static String getText(String url) throws IOException {
         URL website = new URL(url);
         URLConnection connection = website.openConnection();
-        BufferedReader in = new BufferedReader(
-                new InputStreamReader(
-                        connection.getInputStream()));
+        // A hanging request would block a resolver thread for good. A timeout is retried like other errors.
+        connection.setConnectTimeout(Config.getProfileResolverTimeout());
+        connection.setReadTimeout(Config.getProfileResolverTimeout());
 
         StringBuilder response = new StringBuilder();
-        String inputLine;
-
-        while ((inputLine = in.readLine()) != null) {
-            response.append(inputLine);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String inputLine;
+            while ((inputLine = in.readLine()) != null) {
+                response.append(inputLine);
+            }
         }
 
-        in.close();
-
         return response.toString();
     }
 
@@ -149,18 +179,4 @@ public class GameProfileBuilder {
             return result;
         }
     }
-
-    public static class CachedProfile {
-
-        @Getter
-        private final GameProfile profile;
-
-        public CachedProfile(GameProfile profile) {
-            this.profile = profile;
-        }
-
-        public boolean isValid() {
-            return GameProfileBuilder.cacheTime < 0L;
-        }
-    }
 }
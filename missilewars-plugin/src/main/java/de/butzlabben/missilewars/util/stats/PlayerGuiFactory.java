@@ -18,6 +18,7 @@
 
 package de.butzlabben.missilewars.util.stats;
 
+import com.destroystokyo.paper.profile.ProfileProperty;
 import com.mojang.authlib.GameProfile;
 import de.butzlabben.missilewars.Logger;
 import de.butzlabben.missilewars.MissileWars;
@@ -27,15 +28,14 @@ import de.butzlabben.missilewars.game.stats.PlayerStats;
 import de.butzlabben.missilewars.game.stats.PlayerStatsComparator;
 import de.butzlabben.missilewars.inventory.OrcItem;
 import de.butzlabben.missilewars.inventory.pages.PageGUICreator;
-import java.io.IOException;
+import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import org.bukkit.Bukkit;
@@ -45,86 +45,61 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.SkullMeta;
 
+/**
+ * This class creates the menu with the statistics of the players.
+ * <p>
+ * The menu is opened right away. The players whose names aren't known yet are resolved
+ * in the background (see {@link ProfileResolver}), the players on the shown page first.
+ * Their items are updated in the open inventory as soon as a name is resolved.
+ */
 @Getter
 public class PlayerGuiFactory {
 
-    private final static int MAX_FETCHES = 9;
-    private final static int FETCH_EVERY_ROUND = 3;
-
     private final List<PlayerStats> stats;
     private final Map<UUID, String> names = new ConcurrentHashMap<>();
-    private final int fetchRound = 0;
 
     public PlayerGuiFactory(List<PlayerStats> stats) {
         this.stats = stats;
         for (PlayerStats stat : stats) {
+            // The name was joined from the player directory.
+            if (stat.getName() != null) {
+                names.put(stat.getUuid(), stat.getName());
+                continue;
+            }
+
             OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(stat.getUuid());
             if (offlinePlayer.getName() != null) {
                 names.put(stat.getUuid(), offlinePlayer.getName());
                 stat.setName(offlinePlayer.getName());
             }
-            if (GameProfileBuilder.getCache().containsKey(stat.getUuid())) {
-                String name = GameProfileBuilder.getCache().get(stat.getUuid()).getProfile().getName();
-                names.put(stat.getUuid(), name);
-                stat.setName(name);
+            GameProfile profile = GameProfileBuilder.getCache().getIfPresent(stat.getUuid());
+            if (profile != null) {
+                names.put(stat.getUuid(), profile.getName());
+                stat.setName(profile.getName());
+                SkullTextures.getInstance().put(profile);
             }
         }
     }
 
-    public void openWhenReady(Player player) {
-        int realSize = stats.size();
-        int currentSize = names.size();
-        if (realSize > currentSize) {
-            if (Config.isContactAuth()) {
-                player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.STATS_FETCHING_PLAYERS)
-                        .replace("%current_size%", Integer.toString(currentSize))
-                        .replace("%real_size%", Integer.toString(realSize)));
-                ForkJoinPool.commonPool().execute(() -> {
-                    List<UUID> missing = getMissingUUIDs();
-                    int maxFetches = Math.min(missing.size(), MAX_FETCHES);
-                    for (int i = 0; i < maxFetches; i++) {
-                        UUID uuid = missing.get(i);
-                        try {
-                            GameProfile profile = GameProfileBuilder.fetch(uuid);
-                            names.put(uuid, profile.getName());
-                        } catch (IOException e) {
-                            names.put(uuid, "Error getting name");
-                            if (!e.getMessage().contains("Could not connect to mojang servers for unknown player"))
-                                Logger.WARN.log("Could not fetch name for " + uuid.toString() + ". Reason: " + e.getMessage());
-                        }
-                    }
-
-                    openWhenReady(player);
-                });
-                return;
-            }
-        }
-        for (PlayerStats stat : stats) {
-            stat.setName(names.get(stat.getUuid()));
-            if (stat.getName() == null || stat.getName().equals("")) {
-                Logger.WARN.log("Could not find name for: " + stat.getUuid());
-            }
-        }
-
-        Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> open(player));
-    }
-
     public List<UUID> getMissingUUIDs() {
         return stats.stream().map(PlayerStats::getUuid).filter(uuid -> !names.containsKey(uuid)).collect(Collectors.toList());
     }
 
-    private void open(Player player) {
+    /**
+     * This method opens the menu. It must be called on the main thread.
+     *
+     * @param player (Player) the viewer
+     */
+    public void open(Player player) {
         List<PlayerStats> stats = new ArrayList<>(this.stats);
         stats.sort(new PlayerStatsComparator());
 
         PageGUICreator<PlayerStats> creator = new PageGUICreator<>("§ePlayer statistics", stats, (item) -> {
-            String name = item.getName();
+            String name = (item.getName() == null) ? "§8Loading..." : item.getName();
             ItemStack itemStack = new ItemStack(Material.PLAYER_HEAD);
             SkullMeta sm = (SkullMeta) itemStack.getItemMeta();
             if (Config.isShowRealSkins()) {
-                sm.setOwner(name);
-            } else {
-                sm.setOwningPlayer(Bukkit.getOfflinePlayer(item.getUuid()));
+                SkullTextures.apply(sm, item.getUuid(), getTexture(item));
             }
             List<String> lore = Arrays.asList("§7Games played: §e" + item.getGamesPlayed(),
                     "§7W/L: §e" + StatsUtil.formatDouble(item.getWinToLoseRatio()),
@@ -135,8 +110,71 @@ public class PlayerGuiFactory {
             return new OrcItem(itemStack);
         });
 
-        Map<Integer, OrcItem> extraButtons = new HashMap<>();
+        creator.setPageListener((viewer, elements) -> {
+            // The players on the shown page are resolved first.
+            ProfileResolver.getInstance().prioritize(elements.stream()
+                    .filter(stat -> stat.getName() == null).map(PlayerStats::getUuid).collect(Collectors.toList()));
+
+            if (Config.isShowRealSkins()) loadTextures(viewer, creator, elements);
+        });
+
+        List<UUID> missing = getMissingUUIDs();
+        if (!missing.isEmpty() && Config.isContactAuth()) {
+            player.sendMessage(PluginMessages.getMessage(true, PluginMessages.MessageEnum.STATS_FETCHING_PLAYERS)
+                    .replace("%current_size%", Integer.toString(names.size()))
+                    .replace("%real_size%", Integer.toString(this.stats.size())));
+
+            Map<UUID, PlayerStats> statsByUuid = stats.stream().collect(Collectors.toMap(PlayerStats::getUuid, stat -> stat));
+            for (UUID uuid : missing) {
+                ProfileResolver.getInstance().resolve(uuid, ProfileResolver.Priority.NORMAL).whenComplete((profile, throwable) -> {
+                    // The resolver was stopped.
+                    if (throwable instanceof CancellationException) return;
+
+                    String name = (throwable == null) ? profile.getName() : "Error getting name";
+                    if ((throwable != null) && !(throwable instanceof FileNotFoundException)) {
+                        Logger.WARN.log("Could not fetch name for " + uuid + ". Reason: " + throwable.getMessage());
+                    }
+                    // The resolved profile contains the skin, so the head is rendered with it.
+                    if (throwable == null) SkullTextures.getInstance().put(profile);
+
+                    Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> {
+                        names.put(uuid, name);
+                        PlayerStats stat = statsByUuid.get(uuid);
+                        stat.setName(name);
+                        if (player.isOnline()) creator.update(player, stat);
+                    });
+                });
+            }
+        }
 
         creator.show(player);
     }
+
+    /**
+     * This method loads the missing skins of the shown page in the background. Each head
+     * is updated in the open inventory as soon as its skin is loaded.
+     */
+    private void loadTextures(Player player, PageGUICreator<PlayerStats> creator, List<PlayerStats> elements) {
+        for (PlayerStats stat : elements) {
+            if (getTexture(stat) != null) continue;
+            // The skin comes with the profile of the running name resolution.
+            if ((stat.getName() == null) && Config.isContactAuth()) continue;
+
+            SkullTextures.getInstance().load(stat.getUuid()).thenAccept(texture -> {
+                if (texture == null || !MissileWars.getInstance().isEnabled()) return;
+
+                Bukkit.getScheduler().runTask(MissileWars.getInstance(), () -> {
+                    stat.setTexture(texture.getValue());
+                    stat.setTextureSignature(texture.getSignature());
+                    if (player.isOnline()) creator.update(player, stat);
+                });
+            });
+        }
+    }
+
+    private ProfileProperty getTexture(PlayerStats stat) {
+        // The skin of the player directory doesn't need to be loaded.
+        if (stat.getTexture() != null) return new ProfileProperty("textures", stat.getTexture(), stat.getTextureSignature());
+        return SkullTextures.getInstance().getIfPresent(stat.getUuid());
+    }
 }
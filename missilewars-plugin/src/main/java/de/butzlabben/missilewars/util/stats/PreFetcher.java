@@ -21,21 +21,17 @@ package de.butzlabben.missilewars.util.stats;
 import com.mojang.authlib.GameProfile;
 import de.butzlabben.missilewars.Logger;
 import de.butzlabben.missilewars.configuration.Config;
+import de.butzlabben.missilewars.game.stats.PlayerDirectory;
 import de.butzlabben.missilewars.game.stats.StatsFetcher;
-import de.butzlabben.missilewars.inventory.OrcItem;
-import de.butzlabben.missilewars.inventory.pages.InventoryPage;
-import de.butzlabben.missilewars.inventory.pages.PageGUICreator;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.bukkit.Material;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.SkullMeta;
 
 public class PreFetcher {
 
@@ -56,9 +52,8 @@ public class PreFetcher {
     @RequiredArgsConstructor
     public static class PrePlayerFetchRunnable implements Runnable {
 
-        private static final int MAX_SKIN_FETCHES = 10;
         private final StatsFetcher fetcher;
-        private boolean shouldStop = false;
+        private volatile boolean shouldStop = false;
 
         @Override
         public void run() {
@@ -66,64 +61,43 @@ public class PreFetcher {
                 return;
             if (!Config.isContactAuth())
                 return;
-            List<UUID> uuids = fetcher.getPlayers();
-            Map<UUID, String> names = new HashMap<>();
+            // The names of all players who joined the server are known from the player directory.
+            List<UUID> uuids = fetcher.getUnnamedPlayers();
+            if (uuids == null) return;
+            if (uuids.isEmpty()) {
+                Logger.DEBUG.log("All player names are known");
+                return;
+            }
             Collections.reverse(uuids);
             Logger.DEBUG.log("Prefetching " + uuids.size() + " player names");
-            for (UUID uuid : uuids) {
-                if (shouldStop)
-                    break;
-                try {
-                    GameProfile profile = GameProfileBuilder.fetch(uuid);
-                    names.put(uuid, profile.getName());
-                } catch (Exception e) {
-                    Logger.WARN.log("Could not prefetch player " + uuid.toString() + ". Aborting. Reason: " + e.getMessage());
-                    return;
-                }
-            }
 
-            if (!Config.isShowRealSkins()) return;
-            try {
-                Thread.sleep(6 * 10 * 1000);
-            } catch (InterruptedException ignored) {
+            // The names are resolved with a low priority, so the open menus are served first.
+            List<CompletableFuture<GameProfile>> requests = new ArrayList<>();
+            for (UUID uuid : uuids) {
+                requests.add(ProfileResolver.getInstance().resolve(uuid, ProfileResolver.Priority.LOW));
             }
 
-            if (shouldStop) return;
-            Logger.DEBUG.log("Prefetching " + uuids.size() + " player skins");
-            PageGUICreator<String> creator = getPreFetchCreator(names.values());
-            creator.show(null);
-            if (creator.getInvPages() == null) return;
-            int i = 0;
-            for (InventoryPage page : creator.getInvPages()) {
-                if (shouldStop) return;
-                try {
-                    Thread.sleep(20 * 1000);
-                } catch (InterruptedException ignored) {
-                }
-                if (shouldStop) return;
-                Logger.DEBUG.log("Prefetching page " + i);
+            int failed = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                if (shouldStop) break;
                 try {
-                    page.getInventory();
-                } catch (Exception ignored) {
+                    GameProfile profile = requests.get(i).get();
+                    if ((profile != null) && (profile.getName() != null)) {
+                        PlayerDirectory.getInstance().record(uuids.get(i), profile.getName(), SkullTextures.getInstance().put(profile));
+                    }
+                } catch (InterruptedException e) {
+                    break;
+                } catch (ExecutionException | CancellationException e) {
+                    failed++;
                 }
-                i++;
             }
+            if (failed > 0) Logger.WARN.log("Could not prefetch " + failed + " of " + uuids.size() + " players.");
+            GameProfileBuilder.saveCache();
             Logger.DEBUG.log("Players fully loaded");
         }
 
         public void stop() {
             shouldStop = true;
         }
-
-        private PageGUICreator<String> getPreFetchCreator(Collection<String> names) {
-            return new PageGUICreator<>("§ePlayer statistics", names, (item) -> {
-                ItemStack itemStack = new ItemStack(Material.PLAYER_HEAD);
-                SkullMeta sm = (SkullMeta) itemStack.getItemMeta();
-                sm.setOwner(item);
-                sm.setDisplayName(item);
-                itemStack.setItemMeta(sm);
-                return new OrcItem(itemStack);
-            });
-        }
     }
 }
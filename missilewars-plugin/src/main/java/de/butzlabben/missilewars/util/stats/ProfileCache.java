@@ -0,0 +1,233 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.util.stats;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.mojang.authlib.GameProfile;
+import de.butzlabben.missilewars.Logger;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class caches the resolved game profiles of the players.
+ * <p>
+ * The cache holds a limited amount of profiles; the least recently used ones are removed
+ * first. A profile expires after the configured time and is fetched again then. If several
+ * threads request the same missing profile, it's only fetched once and all of them get the
+ * result. The profiles can be saved to a gzipped file, so they don't have to be resolved
+ * again after a restart.
+ */
+public class ProfileCache {
+
+    private final ProfileSource source;
+    private final Gson gson;
+    private final long ttl;
+    private final Map<UUID, Entry> entries;
+    private final Map<UUID, CompletableFuture<GameProfile>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param source (ProfileSource) resolves the missing profiles
+     * @param gson (Gson) serializes the profiles for the cache file
+     * @param maxEntries (int) the maximum amount of cached profiles
+     * @param ttl (long) the time in milliseconds after which a profile is fetched again
+     */
+    public ProfileCache(ProfileSource source, Gson gson, int maxEntries, long ttl) {
+        this.source = source;
+        this.gson = gson;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * This method returns the cached profile of the player. The profile is fetched if
+     * it's missing or expired; the calling thread waits for it then.
+     *
+     * @param uuid (UUID) the player
+     * @return (GameProfile) the profile
+     * @throws IOException if the profile could not be fetched
+     */
+    public GameProfile get(UUID uuid) throws IOException {
+        GameProfile profile = getIfPresent(uuid);
+        if (profile != null) return profile;
+
+        return fetch(uuid);
+    }
+
+    /**
+     * This method returns the cached profile of the player without fetching it.
+     *
+     * @param uuid (UUID) the player
+     * @return (GameProfile) the profile or 'null', if it's missing or expired
+     */
+    public synchronized GameProfile getIfPresent(UUID uuid) {
+        Entry entry = entries.get(uuid);
+        if ((entry == null) || entry.isExpired(ttl)) return null;
+        return entry.profile();
+    }
+
+    /**
+     * This method fetches the profile of the player, even if a valid one is cached. A
+     * fetch of the same player that is already running is joined instead.
+     *
+     * @param uuid (UUID) the player
+     * @return (GameProfile) the profile
+     * @throws IOException if the profile could not be fetched
+     */
+    public GameProfile fetch(UUID uuid) throws IOException {
+        CompletableFuture<GameProfile> future = new CompletableFuture<>();
+        CompletableFuture<GameProfile> running = inFlight.putIfAbsent(uuid, future);
+        if (running != null) return await(running);
+
+        try {
+            GameProfile profile = source.fetch(uuid);
+            put(uuid, profile);
+            future.complete(profile);
+            return profile;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(uuid, future);
+        }
+    }
+
+    public synchronized void put(UUID uuid, GameProfile profile) {
+        entries.put(uuid, new Entry(profile, System.currentTimeMillis()));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private GameProfile await(CompletableFuture<GameProfile> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the profile");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            throw new IOException("Could not fetch the profile", e.getCause());
+        }
+    }
+
+    /**
+     * This method loads the profiles of the cache file. Expired and damaged entries are
+     * skipped.
+     *
+     * @param file (File) the cache file
+     */
+    public void load(File file) {
+        if (!file.isFile()) return;
+
+        int loaded = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file.toPath())), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    JsonObject object = gson.fromJson(line, JsonObject.class);
+                    Entry entry = new Entry(gson.fromJson(object.get("profile"), GameProfile.class), object.get("fetched").getAsLong());
+                    if (entry.isExpired(ttl) || (entry.profile().getId() == null)) continue;
+
+                    synchronized (this) {
+                        entries.putIfAbsent(entry.profile().getId(), entry);
+                    }
+                    loaded++;
+                } catch (JsonParseException | IllegalStateException | NullPointerException e) {
+                    Logger.DEBUG.log("Skipping a damaged entry of the profile cache.");
+                }
+            }
+        } catch (IOException e) {
+            Logger.WARN.log("Could not load the profile cache: " + e.getMessage());
+            return;
+        }
+        Logger.DEBUG.log("Loaded " + loaded + " cached player profiles.");
+    }
+
+    /**
+     * This method saves the valid profiles to the cache file. The file is replaced
+     * atomically, so a crash can't leave a half written file behind.
+     *
+     * @param file (File) the cache file
+     */
+    public void save(File file) {
+        List<Entry> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(entries.values());
+        }
+
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        file.getParentFile().mkdirs();
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tempFile.toPath())), StandardCharsets.UTF_8))) {
+            for (Entry entry : snapshot) {
+                if (entry.isExpired(ttl)) continue;
+
+                JsonObject object = new JsonObject();
+                object.addProperty("fetched", entry.fetchedAt());
+                object.add("profile", gson.toJsonTree(entry.profile(), GameProfile.class));
+                writer.write(gson.toJson(object));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            Logger.WARN.log("Could not save the profile cache: " + e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Logger.WARN.log("Could not save the profile cache: " + e.getMessage());
+        }
+    }
+
+    private record Entry(GameProfile profile, long fetchedAt) {
+
+        boolean isExpired(long ttl) {
+            return System.currentTimeMillis() - fetchedAt > ttl;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.util.stats;
+
+import com.mojang.authlib.GameProfile;
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.configuration.Config;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+
+/**
+ * This class resolves the game profiles of the players in the background.
+ * <p>
+ * The requests are handled by a configurable amount of threads. All threads share one
+ * token bucket, so the session server is never asked more often than configured. Requests
+ * with a higher priority (e.g. the players on the page someone is looking at) are handled
+ * first. Failed requests are retried with an increasing delay; unknown players are not
+ * retried. Several requests for the same player are merged into one.
+ */
+public class ProfileResolver {
+
+    @Getter
+    private static final ProfileResolver instance = new ProfileResolver();
+
+    private static final long BASE_RETRY_DELAY = 1000;
+
+    private final PriorityBlockingQueue<Request> queue = new PriorityBlockingQueue<>();
+    private final Map<UUID, Request> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+    private TokenBucket bucket;
+    private ScheduledExecutorService retryScheduler;
+
+    /**
+     * This method resolves the profile of a player. A cached profile is returned directly.
+     *
+     * @param uuid (UUID) the player
+     * @param priority (Priority) the priority of the request
+     * @return (CompletableFuture) completes with the profile on a resolver thread
+     */
+    public CompletableFuture<GameProfile> resolve(UUID uuid, Priority priority) {
+        GameProfile cached = GameProfileBuilder.getCache().getIfPresent(uuid);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        start();
+        Request request = pending.computeIfAbsent(uuid, key -> {
+            Request newRequest = new Request(key, priority, sequence.getAndIncrement());
+            queue.add(newRequest);
+            return newRequest;
+        });
+        prioritize(request, priority);
+        return request.future;
+    }
+
+    /**
+     * This method moves the waiting requests of the players to the front of the queue.
+     *
+     * @param uuids (Collection) the players, e.g. on the page someone is looking at
+     */
+    public void prioritize(Collection<UUID> uuids) {
+        for (UUID uuid : uuids) {
+            Request request = pending.get(uuid);
+            if (request != null) prioritize(request, Priority.HIGH);
+        }
+    }
+
+    private void prioritize(Request request, Priority priority) {
+        synchronized (request) {
+            if (priority.ordinal() >= request.priority.ordinal()) return;
+
+            // The queue order must not change while the request is queued.
+            boolean queued = queue.remove(request);
+            request.priority = priority;
+            if (queued) queue.add(request);
+        }
+    }
+
+    private synchronized void start() {
+        if (!workers.isEmpty()) return;
+
+        bucket = new TokenBucket(Math.max(0.01, Config.getProfileResolverRate()), Math.max(1, Config.getProfileResolverBurst()));
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MissileWars Profile-Retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 1; i <= Math.max(1, Config.getProfileResolverThreads()); i++) {
+            Thread thread = new Thread(this::work, "MissileWars Profile-Resolver #" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workers.add(thread);
+        }
+    }
+
+    /**
+     * This method stops the resolver threads. Waiting requests are dropped.
+     */
+    public synchronized void shutdown() {
+        if (workers.isEmpty()) return;
+
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+        retryScheduler.shutdownNow();
+        queue.clear();
+        pending.values().forEach(request -> request.future.cancel(false));
+        pending.clear();
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Request request;
+            try {
+                request = queue.take();
+
+                // The profile could have been resolved by another request in the meantime.
+                GameProfile cached = GameProfileBuilder.getCache().getIfPresent(request.uuid);
+                if (cached != null) {
+                    pending.remove(request.uuid, request);
+                    request.future.complete(cached);
+                    continue;
+                }
+                bucket.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                GameProfile profile = GameProfileBuilder.getCache().get(request.uuid);
+                pending.remove(request.uuid, request);
+                request.future.complete(profile);
+            } catch (IOException e) {
+                if (Thread.currentThread().isInterrupted()) return;
+                retryOrFail(request, e);
+            } catch (RuntimeException e) {
+                pending.remove(request.uuid, request);
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void retryOrFail(Request request, IOException e) {
+        // Unknown players can't be resolved by retrying.
+        if ((e instanceof FileNotFoundException) || (request.attempts >= Config.getProfileResolverMaxRetries())) {
+            pending.remove(request.uuid, request);
+            request.future.completeExceptionally(e);
+            return;
+        }
+
+        long delay = BASE_RETRY_DELAY << request.attempts;
+        request.attempts++;
+        Logger.DEBUG.log("Could not resolve the profile of " + request.uuid + " (" + e.getMessage() + "). Retrying in " + delay + " ms.");
+        try {
+            retryScheduler.schedule(() -> queue.add(request), delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException rejected) {
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    private static class Request implements Comparable<Request> {
+
+        private final UUID uuid;
+        private final long sequence;
+        private final CompletableFuture<GameProfile> future = new CompletableFuture<>();
+        private volatile Priority priority;
+        private int attempts = 0;
+
+        private Request(UUID uuid, Priority priority, long sequence) {
+            this.uuid = uuid;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Request other) {
+            int compare = Integer.compare(priority.ordinal(), other.priority.ordinal());
+            if (compare != 0) return compare;
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * This class limits the rate of the requests. It holds up to 'capacity' tokens and is
+     * refilled with 'rate' tokens per second. Each request takes one token.
+     */
+    private static class TokenBucket {
+
+        private final double rate;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        private TokenBucket(double rate, double capacity) {
+            this.rate = rate;
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        synchronized void acquire() throws InterruptedException {
+            while (true) {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - lastRefill) / 1_000_000_000D * rate);
+                lastRefill = now;
+
+                if (tokens >= 1) {
+                    tokens--;
+                    return;
+                }
+
+                long waitMillis = (long) Math.ceil((1 - tokens) / rate * 1000);
+                wait(Math.max(1, waitMillis));
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.util.stats;
+
+import com.mojang.authlib.GameProfile;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * This interface resolves the game profile (name and skin) of a player, e.g. from the
+ * Mojang session server (see {@link GameProfileBuilder}).
+ */
+@FunctionalInterface
+public interface ProfileSource {
+
+    /**
+     * This method fetches the current profile of the player. It's called outside of the
+     * main thread and may block.
+     *
+     * @param uuid (UUID) the player
+     * @return (GameProfile) the profile
+     * @throws IOException if the profile could not be fetched
+     */
+    GameProfile fetch(UUID uuid) throws IOException;
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of MissileWars (https://github.com/Butzlabben/missilewars).
+ * Copyright (c) 2018-2021 Daniel Nägele.
+ *
+ * MissileWars is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MissileWars is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MissileWars.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package de.butzlabben.missilewars.util.stats;
+
+import com.destroystokyo.paper.profile.PlayerProfile;
+import com.destroystokyo.paper.profile.ProfileProperty;
+import com.mojang.authlib.GameProfile;
+import com.mojang.authlib.properties.Property;
+import de.butzlabben.missilewars.Logger;
+import de.butzlabben.missilewars.configuration.Config;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.meta.SkullMeta;
+
+/**
+ * This class provides the skin textures for the player heads of the stats menus.
+ * <p>
+ * The heads are never rendered with a profile that the server would have to complete on
+ * the main thread. A head without a known texture gets the neutral default skin; the
+ * texture is loaded in the background with {@link PlayerProfile#update()} and the head can
+ * be rendered again when it's available. The loaded textures are kept for the following
+ * menus, the least recently used ones are removed first.
+ * <p>
+ * A profile resolved for the name of a player (see {@link ProfileResolver}) contains the
+ * texture already. It's taken from there, so the head doesn't need a second request.
+ */
+public class SkullTextures {
+
+    @Getter
+    private static final SkullTextures instance = new SkullTextures();
+
+    private final Map<UUID, ProfileProperty> textures = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, ProfileProperty> eldest) {
+            return size() > Config.getProfileCacheMaxEntries();
+        }
+    };
+    private final Map<UUID, CompletableFuture<ProfileProperty>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * This method returns the loaded texture of the player without loading it.
+     *
+     * @param uuid (UUID) the player
+     * @return (ProfileProperty) the 'textures' property or 'null', if it's not loaded
+     */
+    public synchronized ProfileProperty getIfPresent(UUID uuid) {
+        return textures.get(uuid);
+    }
+
+    public synchronized void put(UUID uuid, ProfileProperty texture) {
+        textures.put(uuid, texture);
+    }
+
+    /**
+     * This method keeps the texture of a resolved profile.
+     *
+     * @param profile (GameProfile) the profile from the session server or the profile cache
+     * @return (ProfileProperty) the 'textures' property or 'null', if the profile has none
+     */
+    public ProfileProperty put(GameProfile profile) {
+        if ((profile == null) || (profile.getId() == null)) return null;
+
+        for (Property property : profile.getProperties().get("textures")) {
+            ProfileProperty texture = new ProfileProperty("textures", property.getValue(), property.getSignature());
+            put(profile.getId(), texture);
+            return texture;
+        }
+        return null;
+    }
+
+    /**
+     * This method loads the texture of the player in the background. A running load of
+     * the same player is shared.
+     *
+     * @param uuid (UUID) the player
+     * @return (CompletableFuture) completes with the 'textures' property, or 'null' if the
+     *         player has no texture; it doesn't complete on the main thread
+     */
+    public CompletableFuture<ProfileProperty> load(UUID uuid) {
+        ProfileProperty texture = getIfPresent(uuid);
+        if (texture != null) return CompletableFuture.completedFuture(texture);
+
+        CompletableFuture<ProfileProperty> future = new CompletableFuture<>();
+        CompletableFuture<ProfileProperty> running = loading.putIfAbsent(uuid, future);
+        if (running != null) return running;
+
+        Bukkit.createProfile(uuid).update().whenComplete((profile, throwable) -> {
+            loading.remove(uuid, future);
+            if (throwable != null) {
+                Logger.DEBUG.log("Could not load the skin of " + uuid + ": " + throwable.getMessage());
+                future.complete(null);
+                return;
+            }
+
+            ProfileProperty loaded = getTexture(profile);
+            if (loaded != null) put(uuid, loaded);
+            future.complete(loaded);
+        });
+        return future;
+    }
+
+    /**
+     * This method sets the texture on the head. Without a texture, the head keeps the
+     * neutral default skin.
+     *
+     * @param skullMeta (SkullMeta) the head
+     * @param uuid (UUID) the player
+     * @param texture (ProfileProperty) the 'textures' property or 'null'
+     */
+    public static void apply(SkullMeta skullMeta, UUID uuid, ProfileProperty texture) {
+        if (texture == null) return;
+
+        PlayerProfile profile = Bukkit.createProfile(uuid);
+        profile.setProperty(texture);
+        skullMeta.setPlayerProfile(profile);
+    }
+
+    private static ProfileProperty getTexture(PlayerProfile profile) {
+        for (ProfileProperty property : profile.getProperties()) {
+            if (property.getName().equals("textures")) return property;
+        }
+        return null;
+    }
+}